@@ -0,0 +1,139 @@
+package io.github.krloxz.fws;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.github.krloxz.fws.support.ChangeFeed;
+import io.github.krloxz.fws.support.Changes;
+
+/**
+ * Restful controller that exposes the feed of changes made to freelancers and projects, so that
+ * clients can keep their copies in sync without polling every resource.
+ *
+ * @author Carlos Gomez
+ */
+@RestController
+@RequestMapping("/changes")
+public class ChangesApiController {
+
+  private static final int MAX_LIMIT = 1000;
+  private static final int MAX_WAIT_SECONDS = 30;
+  private static final int DEFAULT_LIMIT = 100;
+
+  private final ChangeFeed changeFeed;
+  private final Duration heartbeat;
+  private final Duration streamTimeout;
+
+  ChangesApiController(
+      final ChangeFeed changeFeed,
+      @Value("${fws.changes.stream.heartbeat:15s}") final Duration heartbeat,
+      @Value("${fws.changes.stream.timeout:30m}") final Duration streamTimeout) {
+    this.changeFeed = changeFeed;
+    this.heartbeat = heartbeat;
+    this.streamTimeout = streamTimeout;
+  }
+
+  /**
+   * Long-polls the changes that follow the given position. The response is sent as soon as there
+   * are changes to return, or empty once the wait is over.
+   *
+   * @param since
+   *        the {@code next} position returned by the previous call, defaults to 0 to read from the
+   *        beginning
+   * @param limit
+   *        the maximum number of changes to return, up to 1000, defaults to 100
+   * @param wait
+   *        the maximum number of seconds to wait for changes, up to 30, defaults to 0 to return
+   *        right away
+   * @return the changes that follow the given position, along with the position to resume from
+   * @throws ResponseStatusException
+   *         400 - if the limit or the wait are out of range
+   * @throws InterruptedException
+   *         if interrupted while waiting
+   */
+  @GetMapping
+  public Changes changes(
+      @RequestParam(required = false) final Long since,
+      @RequestParam(required = false) final Integer limit,
+      @RequestParam(required = false) final Integer wait) throws InterruptedException {
+    final var maxChanges = Optional.ofNullable(limit).orElse(DEFAULT_LIMIT);
+    final var waitSeconds = Optional.ofNullable(wait).orElse(0);
+    if (maxChanges < 1 || maxChanges > MAX_LIMIT) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "The limit must be between 1 and %d".formatted(MAX_LIMIT));
+    }
+    if (waitSeconds < 0 || waitSeconds > MAX_WAIT_SECONDS) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "The wait must be between 0 and %d seconds".formatted(MAX_WAIT_SECONDS));
+    }
+    return this.changeFeed.read(
+        Optional.ofNullable(since).orElse(0L), maxChanges, Duration.ofSeconds(waitSeconds));
+  }
+
+  /**
+   * Streams the changes that follow the given position as server-sent events, each identified by
+   * its position so that reconnecting clients resume where they left off through the
+   * {@code Last-Event-ID} header. A comment is sent whenever there are no changes for a while, to
+   * keep the connection open.
+   *
+   * @param lastEventId
+   *        the position of the last change received before reconnecting, takes precedence over
+   *        {@code since}
+   * @param since
+   *        the position to start from, defaults to 0 to stream from the beginning
+   * @return the emitter of the changes
+   */
+  @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream(
+      @RequestHeader(name = "Last-Event-ID", required = false) final Long lastEventId,
+      @RequestParam(required = false) final Long since) {
+    final var emitter = new SseEmitter(this.streamTimeout.toMillis());
+    final var open = new AtomicBoolean(true);
+    emitter.onCompletion(() -> open.set(false));
+    emitter.onTimeout(() -> open.set(false));
+    emitter.onError(e -> open.set(false));
+    final var start = Optional.ofNullable(lastEventId).or(() -> Optional.ofNullable(since)).orElse(0L);
+    Thread.ofVirtual()
+        .name("changes-stream")
+        .start(() -> streamChanges(emitter, open, start));
+    return emitter;
+  }
+
+  private void streamChanges(final SseEmitter emitter, final AtomicBoolean open, final long start) {
+    var position = start;
+    try {
+      while (open.get()) {
+        final var changes = this.changeFeed.read(position, DEFAULT_LIMIT, this.heartbeat);
+        if (changes.changes().isEmpty()) {
+          emitter.send(SseEmitter.event().comment("heartbeat"));
+        }
+        for (final var change : changes.changes()) {
+          emitter.send(SseEmitter.event()
+              .id(String.valueOf(change.position()))
+              .name("change")
+              .data(change, MediaType.APPLICATION_JSON));
+        }
+        position = changes.next();
+      }
+    } catch (final InterruptedException e) {
+      emitter.complete();
+    } catch (final IOException | IllegalStateException e) {
+      // The client disconnected or the emitter timed out
+      emitter.completeWithError(e);
+    }
+  }
+
+}
@@ -0,0 +1,92 @@
+package io.github.krloxz.fws;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.github.krloxz.fws.support.EventChains;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Restful controller that lets clients wait for the consistency tokens returned by requests whose
+ * effects are applied asynchronously, e.g. joining a project, instead of polling the affected
+ * resources.
+ *
+ * @author Carlos Gomez
+ */
+@RestController
+@RequestMapping("/consistency-tokens")
+public class ConsistencyTokensApiController {
+
+  private static final int MAX_WAIT_SECONDS = 30;
+  private static final Pattern WAIT_PREFERENCE = Pattern.compile("\\s*wait\\s*=\\s*(\\d{1,9})\\s*");
+
+  private final EventChains eventChains;
+
+  ConsistencyTokensApiController(final EventChains eventChains) {
+    this.eventChains = eventChains;
+  }
+
+  /**
+   * Retrieves whether everything triggered by the request that returned the given token has
+   * finished. The {@code wait} preference of RFC 7240, e.g. {@code Prefer: wait=10}, makes the
+   * request wait up to the given seconds, 30 at most, for that to happen.
+   *
+   * @param token
+   *        a consistency token
+   * @param prefer
+   *        the preferences of the client, only {@code wait} is honored
+   * @param response
+   *        the current response, where the applied preference is reported
+   * @return the status of the token
+   * @throws ResponseStatusException
+   *         404 - if the token is unknown, e.g. because it expired
+   * @throws InterruptedException
+   *         if interrupted while waiting
+   */
+  @GetMapping("/{token}")
+  public TokenStatus status(
+      @PathVariable final UUID token,
+      @RequestHeader(name = "Prefer", required = false) final String prefer,
+      final HttpServletResponse response) throws InterruptedException {
+    final var wait = waitPreference(prefer);
+    wait.ifPresent(seconds -> response.setHeader("Preference-Applied", "wait=" + seconds));
+    return this.eventChains.await(token, Duration.ofSeconds(wait.orElse(0)))
+        .map(state -> new TokenStatus(token, state))
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown consistency token: " + token));
+  }
+
+  private static Optional<Integer> waitPreference(final String prefer) {
+    return Optional.ofNullable(prefer)
+        .stream()
+        .flatMap(header -> Arrays.stream(header.split(",")))
+        .map(WAIT_PREFERENCE::matcher)
+        .filter(Matcher::matches)
+        .map(matcher -> Math.min(Integer.parseInt(matcher.group(1)), MAX_WAIT_SECONDS))
+        .findFirst();
+  }
+
+  /**
+   * Status of a consistency token.
+   *
+   * @param token
+   *        the consistency token
+   * @param state
+   *        whether everything triggered by the request that returned the token is still pending, has
+   *        completed, or has finished with failures
+   */
+  public record TokenStatus(UUID token, EventChains.State state) {
+  }
+
+}
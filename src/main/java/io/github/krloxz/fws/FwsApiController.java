@@ -1,5 +1,6 @@
 package io.github.krloxz.fws;
 
+import static io.github.krloxz.fws.support.AffordanceLink.affordanceLink;
 import static io.github.krloxz.fws.support.AffordanceLink.affordanceLinkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
@@ -27,8 +28,9 @@ public class FwsApiController {
   public CollectionModel<Object> listResources() {
     return CollectionModel.empty(
         affordanceLinkTo(methodOn(FwsApiController.class).listResources()).withSelfRel(),
-        affordanceLinkTo(methodOn(FreelancersApiController.class).list(null)).withRel("freelancers"),
-        affordanceLinkTo(methodOn(ProjectsApiController.class).projects(null)).withRel("projects"));
+        affordanceLinkTo(methodOn(FreelancersApiController.class).list(null, null, null)).withRel("freelancers"),
+        affordanceLinkTo(methodOn(ProjectsApiController.class).projects((Boolean) null, null)).withRel("projects"),
+        affordanceLink("/changes").withRel("changes"));
   }
 
 }
@@ -5,7 +5,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.hateoas.config.EnableHypermediaSupport;
 import org.springframework.hateoas.config.EnableHypermediaSupport.HypermediaType;
 import org.springframework.modulith.Modulithic;
-import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main class that bootstraps the Freelancer Web Services application.
@@ -15,7 +15,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 @SpringBootApplication
 @EnableHypermediaSupport(type = {HypermediaType.HAL})
 @Modulithic(sharedModules = {"core", "support"})
-@EnableAsync
+@EnableScheduling
 public class FwsApplication {
 
   public static void main(final String[] args) {
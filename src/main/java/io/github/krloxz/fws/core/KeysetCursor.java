@@ -0,0 +1,91 @@
+package io.github.krloxz.fws.core;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of an item within a collection sorted by a key and, to break ties, by an identifier.
+ * <p>
+ * Cursors are exchanged with clients as opaque tokens, use {@link #encode()} and
+ * {@link #decode(String)} to convert them.
+ *
+ * @param direction
+ *        whether the requested items come after or before this position
+ * @param key
+ *        sort key of the item at this position
+ * @param id
+ *        identifier of the item at this position
+ * @author Carlos Gomez
+ */
+public record KeysetCursor(Direction direction, String key, UUID id) {
+
+  private static final String SEPARATOR = ":";
+
+  /**
+   * Creates a cursor to request the items that come after the given position.
+   *
+   * @param key
+   *        sort key of the item at the position
+   * @param id
+   *        identifier of the item at the position
+   * @return the new cursor
+   */
+  public static KeysetCursor after(final String key, final UUID id) {
+    return new KeysetCursor(Direction.AFTER, key, id);
+  }
+
+  /**
+   * Creates a cursor to request the items that come before the given position.
+   *
+   * @param key
+   *        sort key of the item at the position
+   * @param id
+   *        identifier of the item at the position
+   * @return the new cursor
+   */
+  public static KeysetCursor before(final String key, final UUID id) {
+    return new KeysetCursor(Direction.BEFORE, key, id);
+  }
+
+  /**
+   * Decodes a cursor from a token created by {@link #encode()}.
+   *
+   * @param token
+   *        the token to decode
+   * @return the decoded cursor
+   * @throws IllegalArgumentException
+   *         if the token is not a valid cursor
+   */
+  public static KeysetCursor decode(final String token) {
+    final var parts = new String(Base64.getUrlDecoder().decode(token), UTF_8).split(SEPARATOR, 3);
+    if (parts.length != 3) {
+      throw new IllegalArgumentException("Invalid cursor: " + token);
+    }
+    return new KeysetCursor(Direction.valueOf(parts[0]), parts[2], UUID.fromString(parts[1]));
+  }
+
+  /**
+   * @return an opaque, URL-safe, token representing this cursor
+   */
+  public String encode() {
+    final var value = this.direction.name() + SEPARATOR + this.id + SEPARATOR + this.key;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(UTF_8));
+  }
+
+  /**
+   * @return {@code true} if this cursor requests the items that come before its position
+   */
+  public boolean isBefore() {
+    return this.direction == Direction.BEFORE;
+  }
+
+  /**
+   * Direction in which items are requested relative to a cursor.
+   */
+  public enum Direction {
+    AFTER, BEFORE
+  }
+
+}
@@ -0,0 +1,72 @@
+package io.github.krloxz.fws.core;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * A page of items retrieved as specified by a {@link KeysetSpec}.
+ *
+ * @param <T>
+ *        type of the items
+ * @param content
+ *        items in this page
+ * @param previous
+ *        cursor to retrieve the previous page, empty if this is the first page
+ * @param next
+ *        cursor to retrieve the next page, empty if this is the last page
+ * @author Carlos Gomez
+ */
+public record KeysetPage<T>(List<T> content, Optional<KeysetCursor> previous, Optional<KeysetCursor> next) {
+
+  /**
+   * Creates a page and the cursors to navigate from it.
+   *
+   * @param <T>
+   *        type of the items
+   * @param spec
+   *        the specification used to retrieve the items
+   * @param content
+   *        the retrieved items sorted in ascending order
+   * @param hasMore
+   *        whether more items were found beyond the requested page in the direction of the spec
+   * @param keyOf
+   *        function that extracts the sort key from an item
+   * @param idOf
+   *        function that extracts the identifier from an item
+   * @return the new page
+   */
+  public static <T> KeysetPage<T> of(
+      final KeysetSpec spec,
+      final List<T> content,
+      final boolean hasMore,
+      final Function<T, String> keyOf,
+      final Function<T, UUID> idOf) {
+    final var hasPrevious = spec.isBackwards() ? hasMore : spec.cursor().isPresent();
+    final var hasNext = spec.isBackwards() || hasMore;
+    final var first = content.stream().findFirst();
+    final var last = content.isEmpty() ? Optional.<T>empty() : Optional.of(content.get(content.size() - 1));
+    return new KeysetPage<>(
+        content,
+        first.filter(item -> hasPrevious).map(item -> KeysetCursor.before(keyOf.apply(item), idOf.apply(item))),
+        last.filter(item -> hasNext).map(item -> KeysetCursor.after(keyOf.apply(item), idOf.apply(item))));
+  }
+
+  /**
+   * Converts the items of this page.
+   *
+   * @param <R>
+   *        type of the converted items
+   * @param converter
+   *        function to convert every item
+   * @return a new page with the converted items and the same cursors
+   */
+  public <R> KeysetPage<R> map(final Function<? super T, ? extends R> converter) {
+    return new KeysetPage<>(
+        this.content.stream().<R>map(converter).toList(),
+        this.previous,
+        this.next);
+  }
+
+}
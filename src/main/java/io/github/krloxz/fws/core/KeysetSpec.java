@@ -0,0 +1,24 @@
+package io.github.krloxz.fws.core;
+
+import java.util.Optional;
+
+/**
+ * Specification for a page of items to be retrieved by seeking a position in a sorted collection
+ * instead of skipping a number of items.
+ *
+ * @param cursor
+ *        position to seek, when empty the first page is retrieved
+ * @param size
+ *        number of items per page
+ * @author Carlos Gomez
+ */
+public record KeysetSpec(Optional<KeysetCursor> cursor, int size) {
+
+  /**
+   * @return {@code true} if the items before the cursor are requested, {@code false} otherwise
+   */
+  public boolean isBackwards() {
+    return this.cursor.map(KeysetCursor::isBefore).orElse(false);
+  }
+
+}
@@ -0,0 +1,38 @@
+package io.github.krloxz.fws.core;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * A page of items retrieved as specified by a {@link PageSpec}.
+ *
+ * @param <T>
+ *        type of the items
+ * @param content
+ *        items in this page
+ * @param total
+ *        total number of items in all the pages, empty if it wasn't requested
+ * @param hasNext
+ *        whether there are more items after this page
+ * @author Carlos Gomez
+ */
+public record OffsetPage<T>(List<T> content, Optional<Long> total, boolean hasNext) {
+
+  /**
+   * Converts the items of this page.
+   *
+   * @param <R>
+   *        type of the converted items
+   * @param converter
+   *        function to convert every item
+   * @return a new page with the converted items and the same total
+   */
+  public <R> OffsetPage<R> map(final Function<? super T, ? extends R> converter) {
+    return new OffsetPage<>(
+        this.content.stream().<R>map(converter).toList(),
+        this.total,
+        this.hasNext);
+  }
+
+}
@@ -1,5 +1,7 @@
 package io.github.krloxz.fws.core;
 
+import java.util.List;
+
 /**
  * Specification for a page of items to be retrieved.
  *
@@ -7,8 +9,32 @@ package io.github.krloxz.fws.core;
  *        0-based page number
  * @param size
  *        number of items per page
+ * @param sort
+ *        orders to sort the items by, empty to use the default order
+ * @param withTotal
+ *        whether the total number of items is required along with the page
  * @author Carlos Gomez
  */
-public record PageSpec(int number, int size) {
+public record PageSpec(int number, int size, List<SortOrder> sort, boolean withTotal) {
+
+  /**
+   * Creates a specification for a page of items in the default order, including the total number of
+   * items.
+   *
+   * @param number
+   *        0-based page number
+   * @param size
+   *        number of items per page
+   */
+  public PageSpec(final int number, final int size) {
+    this(number, size, List.of(), true);
+  }
+
+  /**
+   * @return the number of items that precede this page
+   */
+  public int offset() {
+    return this.number * this.size;
+  }
 
 }
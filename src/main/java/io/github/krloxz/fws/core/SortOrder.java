@@ -0,0 +1,14 @@
+package io.github.krloxz.fws.core;
+
+/**
+ * Order in which the items of a page are sorted by one of their properties.
+ *
+ * @param property
+ *        name of the property to sort by
+ * @param descending
+ *        {@code true} to sort from the highest to the lowest value, {@code false} otherwise
+ * @author Carlos Gomez
+ */
+public record SortOrder(String property, boolean descending) {
+
+}
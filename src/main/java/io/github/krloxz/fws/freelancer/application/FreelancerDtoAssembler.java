@@ -3,22 +3,31 @@ package io.github.krloxz.fws.freelancer.application;
 import static io.github.krloxz.fws.support.AffordanceLink.affordanceLinkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.data.web.SlicedResourcesAssembler;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.hateoas.SlicedModel;
+import org.springframework.hateoas.mediatype.hal.HalModelBuilder;
 import org.springframework.hateoas.RepresentationModel;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
+import io.github.krloxz.fws.core.KeysetPage;
 import io.github.krloxz.fws.freelancer.application.dtos.CommunicationChannelDto;
 import io.github.krloxz.fws.freelancer.application.dtos.FreelancerDto;
+import io.github.krloxz.fws.freelancer.application.dtos.FreelancerLookupDto;
 import io.github.krloxz.fws.support.AffordanceLink;
+import io.github.krloxz.fws.support.KeysetLinks;
 
 /**
  * {@link RepresentationModelAssembler} that converts {@link FreelancerDto}'s into
@@ -30,17 +39,21 @@ import io.github.krloxz.fws.support.AffordanceLink;
 class FreelancerDtoAssembler implements RepresentationModelAssembler<FreelancerDto, EntityModel<FreelancerDto>> {
 
   private final PagedResourcesAssembler<FreelancerDto> pageAssembler;
+  private final SlicedResourcesAssembler<FreelancerDto> sliceAssembler;
 
-  FreelancerDtoAssembler(final PagedResourcesAssembler<FreelancerDto> pageAssembler) {
+  FreelancerDtoAssembler(
+      final PagedResourcesAssembler<FreelancerDto> pageAssembler,
+      final SlicedResourcesAssembler<FreelancerDto> sliceAssembler) {
     this.pageAssembler = pageAssembler;
+    this.sliceAssembler = sliceAssembler;
   }
 
   @Override
   public EntityModel<FreelancerDto> toModel(final FreelancerDto dto) {
     final var freelancerId = dto.id().orElse("");
     return EntityModel.of(dto)
-        .add(affordanceLinkTo(method().list(null)).withRel(IanaLinkRelations.COLLECTION))
-        .add(affordanceLinkTo(method().get(freelancerId)).withSelfRel())
+        .add(affordanceLinkTo(method().list(null, null, null)).withRel(IanaLinkRelations.COLLECTION))
+        .add(affordanceLinkTo(method().get(freelancerId, null)).withSelfRel())
         .add(affordanceLinkTo(method().changeAddress(freelancerId, null)))
         .add(affordanceLinkTo(method().updateNicknames(freelancerId, null)))
         .add(affordanceLinkTo(method().updateWage(freelancerId, null)))
@@ -54,14 +67,18 @@ class FreelancerDtoAssembler implements RepresentationModelAssembler<FreelancerD
   }
 
   /**
-   * Converts a {@link Page} of {@link FreelancerDto}'s into a {@link PagedModel} instance.
+   * Converts a {@link Slice} of {@link FreelancerDto}'s into a {@link PagedModel} instance when it's a
+   * {@link Page}, or into a {@link SlicedModel} instance otherwise, which lacks the total count of
+   * items and the link to the last page.
    *
-   * @param page
-   *        the page to convert
-   * @return the converted page
+   * @param slice
+   *        the slice to convert
+   * @return the converted slice
    */
-  CollectionModel<EntityModel<FreelancerDto>> toPagedModel(final Page<FreelancerDto> page) {
-    final var pagedModel = this.pageAssembler.toModel(page, this)
+  CollectionModel<EntityModel<FreelancerDto>> toPagedModel(final Slice<FreelancerDto> slice) {
+    final var pagedModel = (slice instanceof final Page<FreelancerDto> page
+        ? this.pageAssembler.toModel(page, this)
+        : this.sliceAssembler.toModel(slice, this))
         .add(affordanceLinkTo(method().register(null)));
     final var affordanceLinks = pagedModel.getLinks().stream()
         .map(AffordanceLink::toAffordanceLink)
@@ -69,6 +86,44 @@ class FreelancerDtoAssembler implements RepresentationModelAssembler<FreelancerD
     return pagedModel.removeLinks().add(affordanceLinks);
   }
 
+  /**
+   * Converts a {@link KeysetPage} of {@link FreelancerDto}'s into a {@link CollectionModel} whose
+   * navigation links carry the cursors of the page.
+   *
+   * @param page
+   *        the page to convert
+   * @return the converted page
+   */
+  CollectionModel<EntityModel<FreelancerDto>> toPagedModel(final KeysetPage<FreelancerDto> page) {
+    return toCollectionModel(page.content())
+        .add(KeysetLinks.of(page))
+        .add(affordanceLinkTo(method().register(null)));
+  }
+
+  /**
+   * Converts the {@link FreelancerDto}'s found by their IDs into a {@link RepresentationModel} that
+   * embeds them along with the IDs that were not found.
+   *
+   * @param ids
+   *        the requested IDs
+   * @param dtos
+   *        the found freelancers
+   * @param missingIds
+   *        the requested IDs that were not found
+   * @return the converted freelancers
+   */
+  RepresentationModel<?> toLookupModel(
+      final List<String> ids,
+      final List<FreelancerDto> dtos,
+      final List<String> missingIds) {
+    return HalModelBuilder.halModelOf(new FreelancerLookupDto(missingIds))
+        .embed(toCollectionModel(dtos).getContent(), LinkRelation.of("freelancers"))
+        .link(affordanceLinkTo(method().list(ids, null, null, null, null)).withSelfRel())
+        .link(affordanceLinkTo(method().list(null, null, null)).withRel(IanaLinkRelations.COLLECTION))
+        .link(affordanceLinkTo(method().register(null)))
+        .build();
+  }
+
   private static FreelancersApiController method() {
     return methodOn(FreelancersApiController.class);
   }
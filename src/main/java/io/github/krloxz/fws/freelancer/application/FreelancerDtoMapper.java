@@ -11,10 +11,12 @@ import org.mapstruct.Mapping;
 import io.github.krloxz.fws.freelancer.application.dtos.AddressDto;
 import io.github.krloxz.fws.freelancer.application.dtos.CommunicationChannelDto;
 import io.github.krloxz.fws.freelancer.application.dtos.FreelancerDto;
+import io.github.krloxz.fws.freelancer.application.dtos.FreelancerFiltersDto;
 import io.github.krloxz.fws.freelancer.application.dtos.HourlyWageDto;
 import io.github.krloxz.fws.freelancer.domain.Address;
 import io.github.krloxz.fws.freelancer.domain.CommunicationChannel;
 import io.github.krloxz.fws.freelancer.domain.Freelancer;
+import io.github.krloxz.fws.freelancer.domain.FreelancerCriteria;
 import io.github.krloxz.fws.freelancer.domain.HourlyWage;
 
 /**
@@ -35,6 +37,7 @@ abstract class FreelancerDtoMapper {
   public abstract List<FreelancerDto> toDto(List<Freelancer> freelancers);
 
   @InheritInverseConfiguration
+  @Mapping(target = "version", ignore = true)
   public abstract Freelancer fromDto(FreelancerDto dto);
 
   public abstract Address fromDto(AddressDto dto);
@@ -43,6 +46,25 @@ abstract class FreelancerDtoMapper {
 
   public abstract HourlyWage fromDto(HourlyWageDto dto);
 
+  /**
+   * @param dto
+   *        the filters of a list of freelancers
+   * @return the criteria that the listed freelancers must meet
+   */
+  public FreelancerCriteria fromDto(final FreelancerFiltersDto dto) {
+    return new FreelancerCriteria(
+        Optional.ofNullable(dto.city()),
+        Optional.ofNullable(dto.state()),
+        Optional.ofNullable(dto.country()),
+        Optional.ofNullable(dto.currency()),
+        Optional.ofNullable(dto.minWage()),
+        Optional.ofNullable(dto.maxWage()),
+        Optional.ofNullable(dto.minWeeklyAvailability()),
+        Optional.ofNullable(dto.gender()),
+        Optional.ofNullable(dto.minBirthDate()),
+        Optional.ofNullable(dto.maxBirthDate()));
+  }
+
   UUID toUUID(final Optional<String> value) {
     return value.map(UUID::fromString)
         .orElse(UUID.randomUUID());
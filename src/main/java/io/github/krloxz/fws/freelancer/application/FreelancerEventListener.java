@@ -1,11 +1,11 @@
 package io.github.krloxz.fws.freelancer.application;
 
-import org.springframework.modulith.events.ApplicationModuleListener;
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.stereotype.Component;
 
-import io.github.krloxz.fws.freelancer.domain.FreelancerRepository;
 import io.github.krloxz.fws.project.domain.FreelancerJoinedProject;
-import io.github.krloxz.fws.support.DomainEventPublisher;
+import io.github.krloxz.fws.support.PartitionedModuleListener;
 
 /**
  * Event listener for events related to freelancers.
@@ -15,26 +15,24 @@ import io.github.krloxz.fws.support.DomainEventPublisher;
 @Component
 public class FreelancerEventListener {
 
-  private final FreelancerRepository repository;
-  private final DomainEventPublisher eventPublisher;
+  private final FreelancerJoinsBatcher joins;
 
-  FreelancerEventListener(final FreelancerRepository repository, final DomainEventPublisher eventPublisher) {
-    this.repository = repository;
-    this.eventPublisher = eventPublisher;
+  FreelancerEventListener(final FreelancerJoinsBatcher joins) {
+    this.joins = joins;
   }
 
   /**
-   * Updates the freelancer's weekly availability when the freelancer joins a project.
+   * Updates the freelancer's weekly availability when the freelancer joins a project. Events are
+   * partitioned by freelancer, so the joins of a freelancer reach the {@link FreelancerJoinsBatcher}
+   * in order, where they are applied along with other joins.
    *
    * @param event
    *        the details of how the freelancer joined the project
+   * @return a future completed once the event is applied, which completes the event publication
    */
-  @ApplicationModuleListener
-  public void on(final FreelancerJoinedProject event) {
-    this.repository.findById(event.freelancerId().value())
-        .map(freelancer -> freelancer.reduceWeeklyAvailability(event.allocatedHours(), event.projectId()))
-        .map(this.repository::update)
-        .map(this.eventPublisher::publish);
+  @PartitionedModuleListener(partitionBy = "freelancerId()")
+  public CompletableFuture<Void> on(final FreelancerJoinedProject event) {
+    return this.joins.add(event);
   }
 
 }
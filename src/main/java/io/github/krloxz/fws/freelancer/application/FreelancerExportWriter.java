@@ -0,0 +1,128 @@
+package io.github.krloxz.fws.freelancer.application;
+
+import static java.util.stream.Collectors.joining;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.github.krloxz.fws.freelancer.application.dtos.FreelancerDto;
+
+/**
+ * Writes {@link FreelancerDto}'s one line at a time, either as newline delimited JSON or as CSV, so
+ * that exports can be written while the freelancers are still being read.
+ *
+ * @author Carlos Gomez
+ */
+@Component
+class FreelancerExportWriter {
+
+  static final String TEXT_CSV_VALUE = "text/csv";
+  static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
+
+  private static final List<String> CSV_HEADER = List.of(
+      "id", "firstName", "lastName", "middleName", "gender", "birthDate",
+      "street", "apartment", "city", "state", "zipCode", "country",
+      "wageAmount", "wageCurrency", "weeklyAvailability", "nicknames", "communicationChannels");
+
+  private final ObjectWriter jsonWriter;
+
+  FreelancerExportWriter(final ObjectMapper objectMapper) {
+    this.jsonWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+  }
+
+  /**
+   * @param accepted
+   *        the media types accepted by the client
+   * @return {@code text/csv} when explicitly accepted, {@code application/x-ndjson} otherwise
+   */
+  MediaType mediaType(final List<MediaType> accepted) {
+    return accepted.stream().anyMatch(TEXT_CSV::equalsTypeAndSubtype)
+        ? TEXT_CSV
+        : MediaType.APPLICATION_NDJSON;
+  }
+
+  /**
+   * Starts an export in the given media type, writing any header right away.
+   *
+   * @param mediaType
+   *        the media type returned by {@link #mediaType(List)}
+   * @param output
+   *        the writer where the export is written
+   * @return a consumer that writes each given freelancer as a line of the export
+   */
+  Consumer<FreelancerDto> start(final MediaType mediaType, final Writer output) {
+    if (TEXT_CSV.equalsTypeAndSubtype(mediaType)) {
+      writeLine(output, toCsv(CSV_HEADER.stream()));
+      return dto -> writeLine(output, toCsv(csvValues(dto)));
+    }
+    return dto -> writeLine(output, toJson(dto));
+  }
+
+  private String toJson(final FreelancerDto dto) {
+    try {
+      return this.jsonWriter.writeValueAsString(dto);
+    } catch (final JsonProcessingException e) {
+      throw new IllegalStateException("Freelancer can't be written as JSON: " + dto.id().orElse(""), e);
+    }
+  }
+
+  private static Stream<String> csvValues(final FreelancerDto dto) {
+    return Stream.of(
+        dto.id().orElse(""),
+        dto.firstName(),
+        dto.lastName(),
+        dto.middleName().orElse(""),
+        dto.gender().map(Enum::name).orElse(""),
+        dto.birthDate().toString(),
+        dto.address().street(),
+        dto.address().apartment().orElse(""),
+        dto.address().city(),
+        dto.address().state(),
+        dto.address().zipCode(),
+        dto.address().country(),
+        dto.wage().amount().toPlainString(),
+        dto.wage().currency(),
+        dto.weeklyAvailability().toString(),
+        String.join(";", dto.nicknames()),
+        dto.communicationChannels()
+            .stream()
+            .map(channel -> channel.type() + ":" + channel.value())
+            .collect(joining(";")));
+  }
+
+  private static String toCsv(final Stream<String> values) {
+    return values.map(value -> Objects.toString(value, ""))
+        .map(FreelancerExportWriter::escapeCsv)
+        .collect(joining(","));
+  }
+
+  private static String escapeCsv(final String value) {
+    if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+      return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+    return value;
+  }
+
+  private static void writeLine(final Writer output, final String line) {
+    try {
+      output.write(line);
+      output.write('\n');
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+}
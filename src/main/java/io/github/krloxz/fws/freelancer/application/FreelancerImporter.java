@@ -0,0 +1,168 @@
+package io.github.krloxz.fws.freelancer.application;
+
+import static java.util.Comparator.comparingInt;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import io.github.krloxz.fws.core.DomainException;
+import io.github.krloxz.fws.freelancer.application.dtos.FreelancerDto;
+import io.github.krloxz.fws.freelancer.application.dtos.ImportErrorDto;
+import io.github.krloxz.fws.freelancer.application.dtos.ImportReportDto;
+import io.github.krloxz.fws.freelancer.domain.Freelancer;
+import io.github.krloxz.fws.freelancer.domain.FreelancerRepository;
+import jakarta.validation.Validator;
+
+/**
+ * Imports freelancers from newline delimited JSON, one freelancer per line.
+ * <p>
+ * Lines are read, validated and written as they arrive, in chunks of the configured size that are
+ * saved in a transaction of their own with batched inserts. Lines that can't be parsed or validated
+ * are reported and skipped. When a chunk fails to be saved, its freelancers are saved one at a time
+ * so that only the failing lines are skipped.
+ *
+ * @author Carlos Gomez
+ */
+@Component
+class FreelancerImporter {
+
+  private static final Log LOGGER = LogFactory.getLog(FreelancerImporter.class);
+
+  private final FreelancerRepository repository;
+  private final FreelancerDtoMapper mapper;
+  private final ObjectReader jsonReader;
+  private final Validator validator;
+  private final TransactionTemplate transactionTemplate;
+  private final int chunkSize;
+
+  FreelancerImporter(
+      final FreelancerRepository repository,
+      final FreelancerDtoMapper mapper,
+      final ObjectMapper objectMapper,
+      final Validator validator,
+      final TransactionTemplate transactionTemplate,
+      @Value("${fws.freelancers.import.chunk-size:1000}") final int chunkSize) {
+    this.repository = repository;
+    this.mapper = mapper;
+    this.jsonReader = objectMapper.readerFor(FreelancerDto.class);
+    this.validator = validator;
+    this.transactionTemplate = transactionTemplate;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Imports the freelancers read from the given input, blank lines are ignored.
+   *
+   * @param input
+   *        newline delimited JSON encoded in UTF-8 with a freelancer per line
+   * @return a report with the errors found per line and the throughput of the import
+   * @throws IOException
+   *         if the input can't be read
+   */
+  ImportReportDto importAll(final InputStream input) throws IOException {
+    final var start = System.nanoTime();
+    final var errors = new ArrayList<ImportErrorDto>();
+    final var chunk = new ArrayList<Line>(this.chunkSize);
+    var lines = 0;
+    var imported = 0;
+    try (var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+      for (var text = reader.readLine(); text != null; text = reader.readLine()) {
+        lines++;
+        if (!text.isBlank()) {
+          parse(lines, text, errors).ifPresent(chunk::add);
+        }
+        if (chunk.size() == this.chunkSize) {
+          imported += save(chunk, errors);
+          chunk.clear();
+        }
+      }
+    }
+    imported += save(chunk, errors);
+    errors.sort(comparingInt(ImportErrorDto::line));
+    final var elapsedNanos = Math.max(System.nanoTime() - start, 1);
+    return new ImportReportDto(
+        lines,
+        imported,
+        errors.size(),
+        elapsedNanos / 1_000_000,
+        imported * 1_000_000_000d / elapsedNanos,
+        errors);
+  }
+
+  private Optional<Line> parse(final int number, final String text, final List<ImportErrorDto> errors) {
+    final FreelancerDto dto;
+    try {
+      dto = this.jsonReader.readValue(text);
+    } catch (final JsonProcessingException e) {
+      errors.add(new ImportErrorDto(number, List.of("Invalid JSON: " + e.getOriginalMessage())));
+      return Optional.empty();
+    }
+    final var violations = this.validator.validate(dto)
+        .stream()
+        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+        .sorted()
+        .toList();
+    if (!violations.isEmpty()) {
+      errors.add(new ImportErrorDto(number, violations));
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(new Line(number, this.mapper.fromDto(dto)));
+    } catch (final DomainException | IllegalArgumentException | IllegalStateException e) {
+      errors.add(new ImportErrorDto(number, List.of(e.getMessage())));
+      return Optional.empty();
+    }
+  }
+
+  private int save(final List<Line> chunk, final List<ImportErrorDto> errors) {
+    if (chunk.isEmpty()) {
+      return 0;
+    }
+    try {
+      this.transactionTemplate.executeWithoutResult(
+          status -> this.repository.saveAll(chunk.stream().map(Line::freelancer).toList()));
+      return chunk.size();
+    } catch (final DataAccessException e) {
+      LOGGER.debug("A chunk of %d freelancers failed, saving them one at a time".formatted(chunk.size()), e);
+      return (int) chunk.stream()
+          .filter(line -> save(line, errors))
+          .count();
+    }
+  }
+
+  private boolean save(final Line line, final List<ImportErrorDto> errors) {
+    try {
+      this.transactionTemplate.executeWithoutResult(status -> this.repository.save(line.freelancer()));
+      return true;
+    } catch (final DuplicateKeyException e) {
+      errors.add(new ImportErrorDto(line.number(), List.of("Freelancer already exists: " + line.freelancer().id())));
+      return false;
+    } catch (final DataAccessException e) {
+      LOGGER.debug("Freelancer in line %d couldn't be saved".formatted(line.number()), e);
+      errors.add(new ImportErrorDto(line.number(), List.of("Freelancer couldn't be saved")));
+      return false;
+    }
+  }
+
+  private static record Line(int number, Freelancer freelancer) {
+  }
+
+}
@@ -0,0 +1,134 @@
+package io.github.krloxz.fws.freelancer.application;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.github.krloxz.fws.freelancer.domain.Freelancer;
+import io.github.krloxz.fws.freelancer.domain.FreelancerRepository;
+import io.github.krloxz.fws.project.domain.FreelancerJoinedProject;
+import io.github.krloxz.fws.support.DomainEventPublisher;
+import io.github.krloxz.fws.support.EventChains;
+import io.github.krloxz.fws.support.MicroBatcher;
+
+/**
+ * Applies {@link FreelancerJoinedProject} events in micro-batches, so that staffing several
+ * projects at once doesn't cost a read and a write per event.
+ * <p>
+ * The events of a batch are applied in a single transaction: the affected freelancers are loaded
+ * with one query, the hours of every event are reduced one event at a time, so each freelancer
+ * accumulates all its changes and a commitment failure is still raised for the specific project
+ * that overflowed, and the freelancers are finally written with one batch. The events published by
+ * a batch join the {@link EventChains} of all the events in the batch.
+ * <p>
+ * Events are batched on as many partitions as the event listeners, keyed by freelancer the same
+ * way, so the joins of a freelancer are applied in order while a slow or conflicting batch only
+ * holds back the joins of its own partition.
+ * <p>
+ * When a freelancer of the batch was updated concurrently, e.g. by a PATCH request, the batch is
+ * applied again on freshly loaded freelancers, up to the configured number of attempts, so the
+ * reductions aren't lost to the optimistic locking of the freelancers.
+ * <p>
+ * When a batch still fails, e.g. because a freelancer keeps conflicting, the events of each
+ * freelancer are applied again in a transaction of their own, so only the joins of the failing
+ * freelancer fail and are left for their event publications to be resubmitted.
+ *
+ * @author Carlos Gomez
+ */
+@Component
+class FreelancerJoinsBatcher implements DisposableBean {
+
+  private static final Log LOGGER = LogFactory.getLog(FreelancerJoinsBatcher.class);
+
+  private final FreelancerRepository repository;
+  private final DomainEventPublisher eventPublisher;
+  private final EventChains eventChains;
+  private final TransactionTemplate transactionTemplate;
+  private final List<MicroBatcher<FreelancerJoinedProject>> batchers;
+  private final int maxAttempts;
+
+  FreelancerJoinsBatcher(
+      final FreelancerRepository repository,
+      final DomainEventPublisher eventPublisher,
+      final EventChains eventChains,
+      final TransactionTemplate transactionTemplate,
+      @Value("${fws.events.listener.partitions:16}") final int partitions,
+      @Value("${fws.freelancers.joins.batch-size:100}") final int batchSize,
+      @Value("${fws.freelancers.joins.batch-window:10ms}") final Duration batchWindow,
+      @Value("${fws.freelancers.joins.max-attempts:3}") final int maxAttempts) {
+    this.repository = repository;
+    this.eventPublisher = eventPublisher;
+    this.eventChains = eventChains;
+    this.transactionTemplate = transactionTemplate;
+    this.batchers = IntStream.range(0, partitions)
+        .mapToObj(partition -> new MicroBatcher<FreelancerJoinedProject>(
+            "freelancer-joins-" + partition,
+            batchSize,
+            batchWindow,
+            FreelancerJoinedProject::freelancerId,
+            this::apply))
+        .toList();
+    this.maxAttempts = maxAttempts;
+  }
+
+  /**
+   * Adds the given event to the next batch.
+   *
+   * @param event
+   *        the details of how the freelancer joined the project
+   * @return a future completed once the event's batch is committed
+   */
+  CompletableFuture<Void> add(final FreelancerJoinedProject event) {
+    return this.batchers.get(Math.floorMod(Objects.hashCode(event.freelancerId()), this.batchers.size()))
+        .submit(event);
+  }
+
+  @Override
+  public void destroy() {
+    this.batchers.forEach(MicroBatcher::close);
+  }
+
+  private void apply(final List<FreelancerJoinedProject> events) {
+    this.eventChains.within(events, () -> applyRetryingConflicts(events));
+  }
+
+  private void applyRetryingConflicts(final List<FreelancerJoinedProject> events) {
+    for (var attempt = 1;; attempt++) {
+      try {
+        applyInTransaction(events);
+        return;
+      } catch (final OptimisticLockingFailureException e) {
+        if (attempt >= this.maxAttempts) {
+          throw e;
+        }
+        LOGGER.debug("Attempt %d to apply %d joins conflicted, retrying".formatted(attempt, events.size()), e);
+      }
+    }
+  }
+
+  private void applyInTransaction(final List<FreelancerJoinedProject> events) {
+    this.transactionTemplate.executeWithoutResult(status -> {
+      final var freelancers = new LinkedHashMap<UUID, Freelancer>();
+      this.repository.findAllById(events.stream().map(event -> event.freelancerId().value()).toList())
+          .forEach(freelancer -> freelancers.put(freelancer.id(), freelancer));
+      events.forEach(event -> freelancers.computeIfPresent(
+          event.freelancerId().value(),
+          (id, freelancer) -> freelancer.reduceWeeklyAvailability(event.allocatedHours(), event.projectId())));
+      this.repository.updateAll(List.copyOf(freelancers.values()))
+          .forEach(this.eventPublisher::publish);
+    });
+  }
+
+}
@@ -1,15 +1,26 @@
 package io.github.krloxz.fws.freelancer.application;
 
+import static java.util.stream.Collectors.toSet;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.data.domain.Sort;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,18 +29,28 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import io.github.krloxz.fws.core.PageSpec;
 import io.github.krloxz.fws.freelancer.application.dtos.AddressDto;
 import io.github.krloxz.fws.freelancer.application.dtos.CommunicationChannelDto;
 import io.github.krloxz.fws.freelancer.application.dtos.FreelancerDto;
+import io.github.krloxz.fws.freelancer.application.dtos.FreelancerFiltersDto;
 import io.github.krloxz.fws.freelancer.application.dtos.HourlyWageDto;
+import io.github.krloxz.fws.freelancer.application.dtos.ImportReportDto;
 import io.github.krloxz.fws.freelancer.domain.Freelancer;
+import io.github.krloxz.fws.freelancer.domain.FreelancerCriteria;
 import io.github.krloxz.fws.freelancer.domain.FreelancerRepository;
+import io.github.krloxz.fws.support.KeysetLinks;
+import io.github.krloxz.fws.support.PageSpecs;
+import io.github.krloxz.fws.support.VersionTags;
+import jakarta.servlet.http.HttpServletResponse;
 
 /**
  * Restful controller that exposes the Freelancers API.
@@ -41,48 +62,200 @@ import io.github.krloxz.fws.freelancer.domain.FreelancerRepository;
 @RequestMapping("/freelancers")
 public class FreelancersApiController {
 
+  private static final Set<String> SORTABLE_PROPERTIES = Set.of("lastName", "wage", "weeklyAvailability");
+  private static final int MAX_IDS = 100;
+
   private final FreelancerRepository repository;
   private final FreelancerDtoMapper mapper;
   private final FreelancerDtoAssembler assembler;
+  private final FreelancerExportWriter exportWriter;
+  private final FreelancerImporter importer;
 
   FreelancersApiController(
       final FreelancerRepository repository,
       final FreelancerDtoMapper mapper,
-      final FreelancerDtoAssembler assembler) {
+      final FreelancerDtoAssembler assembler,
+      final FreelancerExportWriter exportWriter,
+      final FreelancerImporter importer) {
     this.repository = repository;
     this.mapper = mapper;
     this.assembler = assembler;
+    this.exportWriter = exportWriter;
+    this.importer = importer;
   }
 
   /**
+   * @param filters
+   *        filters that the listed freelancers must match, absent filters are ignored
+   * @param withTotal
+   *        whether to include the total number of matching freelancers, omitting it saves counting
+   *        them but the link to the last page can no longer be provided, defaults to {@code true}
    * @param pageRequest
-   *        details of the requested page
-   * @return a paginated list of freelancers
+   *        details of the requested page, which can be sorted by one of {@code lastName},
+   *        {@code wage} or {@code weeklyAvailability}
+   * @return a paginated list of the freelancers that match the given filters
+   * @throws ResponseStatusException
+   *         400 - if the requested sort is not supported
    */
   @GetMapping
   @Transactional(readOnly = true)
-  public CollectionModel<EntityModel<FreelancerDto>> list(final Pageable pageRequest) {
+  public CollectionModel<EntityModel<FreelancerDto>> list(
+      final FreelancerFiltersDto filters,
+      final Boolean withTotal,
+      final Pageable pageRequest) {
+    final var criteria = this.mapper.fromDto(filters);
     return pageRequest.toOptional()
-        .map(this::toPageSpec)
-        .map(this.repository::findAllBy)
-        .map(this.mapper::toDto)
-        .map(content -> getPage(pageRequest, content))
+        .map(pageable -> toPageSpec(pageable, !Boolean.FALSE.equals(withTotal)))
+        .map(pageSpec -> this.repository.findAllBy(criteria, pageSpec))
+        .map(page -> page.map(this.mapper::toDto))
+        .map(page -> PageSpecs.toSlice(page, pageRequest))
+        .map(this.assembler::toPagedModel)
+        .orElseThrow();
+  }
+
+  /**
+   * Lists freelancers using keyset pagination, which keeps a constant cost regardless of how deep
+   * the requested page is. Offset pagination is still supported by
+   * {@link #list(FreelancerFiltersDto, Boolean, Pageable)}.
+   *
+   * @param cursor
+   *        opaque token taken from the links of a previous page, blank to request the first page
+   * @param filters
+   *        filters that the listed freelancers must match, absent filters are ignored
+   * @param withTotal
+   *        not supported, keyset pages are never counted
+   * @param pageRequest
+   *        details of the requested page, only the page size is supported
+   * @return a list of the freelancers that match the given filters sorted by last name, along with
+   *         the links to navigate through the list
+   * @throws ResponseStatusException
+   *         400 - if the cursor is not valid, or if a sort or the total is requested
+   */
+  @GetMapping(params = { "cursor", "!id" })
+  @Transactional(readOnly = true)
+  public CollectionModel<EntityModel<FreelancerDto>> list(
+      @RequestParam final String cursor,
+      final FreelancerFiltersDto filters,
+      final Boolean withTotal,
+      final Pageable pageRequest) {
+    if (withTotal != null || pageRequest.getSort().isSorted()) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "Freelancers listed from a cursor are sorted by last name and can't be counted");
+    }
+    final var criteria = this.mapper.fromDto(filters);
+    return Optional.of(PageSpecs.keysetOf(cursor, pageRequest))
+        .map(keysetSpec -> this.repository.findAllBy(criteria, keysetSpec))
+        .map(page -> page.map(this.mapper::toDto))
         .map(this.assembler::toPagedModel)
         .orElseThrow();
   }
 
   /**
+   * Retrieves several freelancers by their IDs with a single lookup, IDs that don't belong to a
+   * registered freelancer are reported instead of failing the request.
+   *
+   * @param ids
+   *        up to 100 freelancer identifiers
+   * @param filters
+   *        not supported, the freelancers are selected by their IDs only
+   * @param withTotal
+   *        not supported, the freelancers are selected by their IDs only
+   * @param sort
+   *        not supported, the freelancers are returned in the order of their IDs
+   * @param request
+   *        the current request, which can't carry a cursor since the freelancers are selected by
+   *        their IDs only
+   * @return the found freelancers, in the same order as the given IDs, along with the IDs that were
+   *         not found
+   * @throws ResponseStatusException
+   *         400 - if more than 100 IDs are given, or if a cursor, filters, a sort or the total are
+   *         requested
+   */
+  @GetMapping(params = "id")
+  @Transactional(readOnly = true)
+  public RepresentationModel<?> list(
+      @RequestParam("id") final List<String> ids,
+      final FreelancerFiltersDto filters,
+      final Boolean withTotal,
+      final Sort sort,
+      final WebRequest request) {
+    if (request.getParameter(KeysetLinks.CURSOR_PARAM) != null) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "Freelancers can be retrieved either by IDs or from a cursor, not both");
+    }
+    if (!this.mapper.fromDto(filters).equals(FreelancerCriteria.any()) || withTotal != null || sort.isSorted()) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "Freelancers retrieved by IDs can't be filtered, sorted or counted");
+    }
+    if (ids.size() > MAX_IDS) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "No more than %d freelancers can be retrieved at once".formatted(MAX_IDS));
+    }
+    final var freelancers = this.repository.findAllById(
+        ids.stream().map(this::toFreelancerId).flatMap(Optional::stream).toList());
+    final var foundIds = freelancers.stream()
+        .map(Freelancer::id)
+        .collect(toSet());
+    final var missingIds = ids.stream()
+        .filter(id -> toFreelancerId(id).filter(foundIds::contains).isEmpty())
+        .distinct()
+        .toList();
+    return this.assembler.toLookupModel(ids, this.mapper.toDto(freelancers), missingIds);
+  }
+
+  /**
+   * Exports all the freelancers as newline delimited JSON, or as CSV when requested by the
+   * {@code Accept} header.
+   * <p>
+   * Freelancers are written to the response as they are read from the database, without building
+   * their representation models, so the response starts before all of them are read and the memory
+   * used doesn't depend on their number.
+   *
+   * @param accept
+   *        the media types accepted by the client
+   * @param response
+   *        the response where the freelancers are written
+   * @throws IOException
+   *         if the response can't be written
+   */
+  @GetMapping(
+      path = "/export",
+      produces = { MediaType.APPLICATION_NDJSON_VALUE, FreelancerExportWriter.TEXT_CSV_VALUE })
+  @Transactional(readOnly = true)
+  public void export(
+      @RequestHeader(name = HttpHeaders.ACCEPT, defaultValue = MediaType.ALL_VALUE) final String accept,
+      final HttpServletResponse response) throws IOException {
+    final var mediaType = this.exportWriter.mediaType(MediaType.parseMediaTypes(accept));
+    response.setContentType(mediaType.toString());
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    try (var output = new BufferedWriter(
+        new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8))) {
+      final var writeLine = this.exportWriter.start(mediaType, output);
+      this.repository.forEach(freelancer -> writeLine.accept(this.mapper.toDto(freelancer)));
+    }
+  }
+
+  /**
+   * Retrieves a freelancer along with its version as entity tag, so that clients can revalidate it
+   * with {@code If-None-Match} and make conditional updates with {@code If-Match}.
+   *
    * @param id
    *        a freelancer identifier
-   * @return the freelancer with the given ID
+   * @param request
+   *        the current request
+   * @return the freelancer with the given ID, or {@code null} with a 304 status if it matches the
+   *         {@code If-None-Match} header
    * @throws ResponseStatusException
    *         404 - if the freelancer with the given ID does not exist
    */
   @GetMapping("/{id}")
   @Transactional(readOnly = true)
-  public EntityModel<FreelancerDto> get(@PathVariable final String id) {
-    return Optional.of(id)
-        .map(this::findById)
+  public EntityModel<FreelancerDto> get(@PathVariable final String id, final WebRequest request) {
+    final var freelancer = findById(id);
+    if (request.checkNotModified(VersionTags.of(freelancer.version()))) {
+      return null;
+    }
+    return Optional.of(freelancer)
         .map(this.mapper::toDto)
         .map(this.assembler::toModel)
         .orElseThrow();
@@ -101,11 +274,31 @@ public class FreelancersApiController {
     return Optional.of(dto)
         .map(this.mapper::fromDto)
         .map(this.repository::save)
+        .map(this::tagged)
         .map(this.mapper::toDto)
         .map(this.assembler::toModel)
         .orElseThrow();
   }
 
+  /**
+   * Registers the freelancers streamed in the request body as newline delimited JSON.
+   * <p>
+   * Each line is validated as a freelancer to {@link #register(FreelancerDto) register}, and the
+   * valid ones are saved in chunks, each in a transaction of its own, so a failing line doesn't
+   * prevent the other ones from being registered.
+   *
+   * @param body
+   *        the request body with a freelancer per line
+   * @return a report with the errors found per line and the throughput of the import
+   * @throws IOException
+   *         if the request body can't be read
+   */
+  @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public ImportReportDto importAll(final InputStream body) throws IOException {
+    return this.importer.importAll(body);
+  }
+
   /**
    * Changes the address of the freelancer identified by the given identifier.
    *
@@ -123,8 +316,9 @@ public class FreelancersApiController {
       @Validated @RequestBody final AddressDto newAddress) {
     return Optional.of(newAddress)
         .map(this.mapper::fromDto)
-        .map(findById(id)::movedTo)
+        .map(findForUpdate(id)::movedTo)
         .map(this.repository::update)
+        .map(this::tagged)
         .map(this.mapper::toDto)
         .map(this.assembler::toModel)
         .orElseThrow();
@@ -146,8 +340,9 @@ public class FreelancersApiController {
       @PathVariable final String id,
       @RequestBody final String[] nicknames) {
     return Optional.of(nicknames)
-        .map(findById(id)::withNicknames)
+        .map(findForUpdate(id)::withNicknames)
         .map(this.repository::update)
+        .map(this::tagged)
         .map(this.mapper::toDto)
         .map(this.assembler::toModel)
         .orElseThrow();
@@ -170,8 +365,9 @@ public class FreelancersApiController {
       @Validated @RequestBody final HourlyWageDto wage) {
     return Optional.of(wage)
         .map(this.mapper::fromDto)
-        .map(findById(id)::withHourlyWage)
+        .map(findForUpdate(id)::withHourlyWage)
         .map(this.repository::update)
+        .map(this::tagged)
         .map(this.mapper::toDto)
         .map(this.assembler::toModel)
         .orElseThrow();
@@ -202,8 +398,9 @@ public class FreelancersApiController {
       @Validated @RequestBody final CommunicationChannelDto channel) {
     return Optional.of(channel)
         .map(this.mapper::fromDto)
-        .map(findById(id)::addCommunicationChannel)
+        .map(findForUpdate(id)::addCommunicationChannel)
         .map(this.repository::update)
+        .map(this::tagged)
         .map(this.mapper::toDto)
         .map(this.assembler::toModel)
         .orElseThrow();
@@ -243,19 +440,16 @@ public class FreelancersApiController {
   public EntityModel<FreelancerDto> removeCommunicationChannel(
       @PathVariable final String id,
       @PathVariable final String channelId) {
-    return Optional.of(removeCommunicationChannel(findById(id), channelId))
+    return Optional.of(removeCommunicationChannel(findForUpdate(id), channelId))
         .map(this.repository::update)
+        .map(this::tagged)
         .map(this.mapper::toDto)
         .map(this.assembler::toModel)
         .orElseThrow();
   }
 
-  private PageSpec toPageSpec(final Pageable pageable) {
-    return new PageSpec(pageable.getPageNumber(), pageable.getPageSize());
-  }
-
-  private Page<FreelancerDto> getPage(final Pageable pageRequest, final List<FreelancerDto> content) {
-    return PageableExecutionUtils.getPage(content, pageRequest, this.repository::count);
+  private PageSpec toPageSpec(final Pageable pageable, final boolean withTotal) {
+    return PageSpecs.of(pageable, SORTABLE_PROPERTIES, withTotal);
   }
 
   private Freelancer findById(final String id) {
@@ -264,6 +458,21 @@ public class FreelancersApiController {
         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
   }
 
+  /**
+   * Finds a freelancer that is about to be updated, ensuring it's still in the version expected by
+   * the client.
+   */
+  private Freelancer findForUpdate(final String id) {
+    final var freelancer = findById(id);
+    VersionTags.checkIfMatch(freelancer.version());
+    return freelancer;
+  }
+
+  private Freelancer tagged(final Freelancer freelancer) {
+    VersionTags.tag(freelancer.version());
+    return freelancer;
+  }
+
   private Optional<UUID> toFreelancerId(final String id) {
     try {
       return Optional.of(UUID.fromString(id));
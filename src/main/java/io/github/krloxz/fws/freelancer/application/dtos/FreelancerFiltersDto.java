@@ -0,0 +1,30 @@
+package io.github.krloxz.fws.freelancer.application.dtos;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+
+import io.github.krloxz.fws.freelancer.domain.FreelancerCriteria;
+import io.github.krloxz.fws.freelancer.domain.Gender;
+
+/**
+ * DTO to carry the query parameters that filter a list of freelancers, which are translated into
+ * {@link FreelancerCriteria}. Absent parameters are {@code null}.
+ *
+ * @author Carlos Gomez
+ */
+public record FreelancerFiltersDto(
+    String city,
+    String state,
+    String country,
+    String currency,
+    BigDecimal minWage,
+    BigDecimal maxWage,
+    Integer minWeeklyAvailability,
+    Gender gender,
+    @DateTimeFormat(iso = ISO.DATE) LocalDate minBirthDate,
+    @DateTimeFormat(iso = ISO.DATE) LocalDate maxBirthDate) {
+
+}
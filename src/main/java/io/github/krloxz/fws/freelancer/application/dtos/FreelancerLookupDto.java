@@ -0,0 +1,13 @@
+package io.github.krloxz.fws.freelancer.application.dtos;
+
+import java.util.List;
+
+/**
+ * DTO to carry the outcome of looking up several freelancers by their IDs, along with the found
+ * freelancers.
+ *
+ * @author Carlos Gomez
+ */
+public record FreelancerLookupDto(List<String> missingIds) {
+
+}
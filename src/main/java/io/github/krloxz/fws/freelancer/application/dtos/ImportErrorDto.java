@@ -0,0 +1,12 @@
+package io.github.krloxz.fws.freelancer.application.dtos;
+
+import java.util.List;
+
+/**
+ * DTO to carry the errors found in a line of an import.
+ *
+ * @author Carlos Gomez
+ */
+public record ImportErrorDto(int line, List<String> errors) {
+
+}
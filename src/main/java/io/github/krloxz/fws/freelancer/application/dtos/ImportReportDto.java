@@ -0,0 +1,18 @@
+package io.github.krloxz.fws.freelancer.application.dtos;
+
+import java.util.List;
+
+/**
+ * DTO to carry the outcome of an import of freelancers.
+ *
+ * @author Carlos Gomez
+ */
+public record ImportReportDto(
+    int lines,
+    int imported,
+    int failed,
+    long elapsedMillis,
+    double importedPerSecond,
+    List<ImportErrorDto> errors) {
+
+}
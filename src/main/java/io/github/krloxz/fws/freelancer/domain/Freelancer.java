@@ -75,6 +75,15 @@ public abstract class Freelancer implements DomainEventSupplier {
    */
   public abstract Set<CommunicationChannel> communicationChannels();
 
+  /**
+   * @return the version of this freelancer's stored state, increased every time the freelancer is
+   *         updated
+   */
+  @Value.Default
+  public long version() {
+    return 0;
+  }
+
   /**
    * Creates a new builder for the Freelancer class.
    *
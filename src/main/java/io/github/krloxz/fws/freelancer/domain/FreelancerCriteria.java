@@ -0,0 +1,62 @@
+package io.github.krloxz.fws.freelancer.domain;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Criteria that freelancers must meet to be found. Empty criteria are ignored, and ranges include
+ * their limits.
+ *
+ * @param city
+ *        city of the freelancer's address
+ * @param state
+ *        state of the freelancer's address
+ * @param country
+ *        country of the freelancer's address
+ * @param currency
+ *        currency of the freelancer's hourly wage
+ * @param minWage
+ *        minimum amount of the freelancer's hourly wage
+ * @param maxWage
+ *        maximum amount of the freelancer's hourly wage
+ * @param minWeeklyAvailability
+ *        minimum number of hours the freelancer is available per week
+ * @param gender
+ *        freelancer's gender
+ * @param minBirthDate
+ *        earliest birth date of the freelancer
+ * @param maxBirthDate
+ *        latest birth date of the freelancer
+ * @author Carlos Gomez
+ */
+public record FreelancerCriteria(
+    Optional<String> city,
+    Optional<String> state,
+    Optional<String> country,
+    Optional<String> currency,
+    Optional<BigDecimal> minWage,
+    Optional<BigDecimal> maxWage,
+    Optional<Integer> minWeeklyAvailability,
+    Optional<Gender> gender,
+    Optional<LocalDate> minBirthDate,
+    Optional<LocalDate> maxBirthDate) {
+
+  /**
+   * @return criteria met by all the freelancers
+   */
+  public static FreelancerCriteria any() {
+    return new FreelancerCriteria(
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty());
+  }
+
+}
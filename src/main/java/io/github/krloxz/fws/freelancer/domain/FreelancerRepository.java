@@ -1,10 +1,17 @@
 package io.github.krloxz.fws.freelancer.domain;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+import io.github.krloxz.fws.core.KeysetPage;
+import io.github.krloxz.fws.core.KeysetSpec;
+import io.github.krloxz.fws.core.OffsetPage;
 import io.github.krloxz.fws.core.PageSpec;
+import io.github.krloxz.fws.core.PersonName;
 
 /**
  * Repository for freelancers.
@@ -29,6 +36,15 @@ public interface FreelancerRepository {
    */
   Freelancer save(Freelancer freelancer);
 
+  /**
+   * Saves several freelancers at once, batching the inserts of each table.
+   *
+   * @param freelancers
+   *        the freelancers to save
+   * @return the saved freelancers
+   */
+  List<Freelancer> saveAll(List<Freelancer> freelancers);
+
   /**
    * Updates a freelancer.
    *
@@ -39,13 +55,54 @@ public interface FreelancerRepository {
   Freelancer update(Freelancer freelancer);
 
   /**
-   * Returns a page of freelancers meeting the criteria specified by the given {@link PageSpec}.
+   * Updates several freelancers at once, batching the writes where possible.
+   *
+   * @param freelancers
+   *        the freelancers to update, each one at most once
+   * @return the updated freelancers in the same order
+   */
+  List<Freelancer> updateAll(List<Freelancer> freelancers);
+
+  /**
+   * Returns a page of the freelancers that meet the given criteria, sorted by last name and ID
+   * unless another order is specified by the page.
+   * <p>
+   * The total count of matching freelancers is only included when requested by the page
+   * specification.
    *
+   * @param criteria
+   *        criteria that the returned freelancers must meet
    * @param pageSpec
    *        specification for the page to return
-   * @return a {@link Flux} with the requested page of freelancers
+   * @return the requested page of freelancers
+   */
+  OffsetPage<Freelancer> findAllBy(FreelancerCriteria criteria, PageSpec pageSpec);
+
+  /**
+   * Returns a page of the freelancers that match the given criteria, sorted by last name and ID,
+   * starting at the position specified by the given {@link KeysetSpec}.
+   * <p>
+   * Unlike {@link #findAllBy(FreelancerCriteria, PageSpec)}, the cost of this query doesn't grow with
+   * the page position.
+   *
+   * @param criteria
+   *        the criteria that the freelancers must match
+   * @param keysetSpec
+   *        specification for the page to return, the cursor key is the freelancer's last name
+   * @return the requested page of freelancers
+   */
+  KeysetPage<Freelancer> findAllBy(FreelancerCriteria criteria, KeysetSpec keysetSpec);
+
+  /**
+   * Performs the given action for every freelancer, sorted by ID, as they are read from the
+   * database, so that only a few freelancers are held in memory at once regardless of their number.
+   * <p>
+   * The freelancers passed to the action are not meant to be updated afterwards.
+   *
+   * @param action
+   *        the action to perform for each freelancer
    */
-  List<Freelancer> findAllBy(PageSpec pageSpec);
+  void forEach(Consumer<? super Freelancer> action);
 
   /**
    * Finds a freelancer by its unique identifier.
@@ -56,9 +113,45 @@ public interface FreelancerRepository {
    */
   Optional<Freelancer> findById(UUID id);
 
+  /**
+   * Finds several freelancers by their unique identifiers with a single query.
+   *
+   * @param ids
+   *        the unique identifiers of the freelancers to find
+   * @return the found freelancers in the same order as the given identifiers, identifiers of
+   *         freelancers that don't exist are skipped
+   */
+  List<Freelancer> findAllById(Collection<UUID> ids);
+
+  /**
+   * Finds the name of a freelancer without loading the rest of the aggregate.
+   *
+   * @param id
+   *        the unique identifier of the freelancer
+   * @return the freelancer's name, if found
+   */
+  Optional<PersonName> findNameById(UUID id);
+
+  /**
+   * Finds the names of several freelancers with a single query, without loading the rest of their
+   * aggregates.
+   *
+   * @param ids
+   *        the unique identifiers of the freelancers
+   * @return the names of the found freelancers indexed by their identifiers
+   */
+  Map<UUID, PersonName> findNamesByIds(Collection<UUID> ids);
+
   /**
    * @return a {@link Mono} with the count of freelancers in the repository
    */
   int count();
 
+  /**
+   * @param criteria
+   *        criteria that the counted freelancers must meet
+   * @return the count of freelancers that meet the given criteria
+   */
+  int count(FreelancerCriteria criteria);
+
 }
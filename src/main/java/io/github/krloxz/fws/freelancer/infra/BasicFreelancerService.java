@@ -1,62 +1,53 @@
 package io.github.krloxz.fws.freelancer.infra;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
-import org.springframework.hateoas.EntityModel;
-import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.transaction.annotation.Transactional;
 
 import io.github.krloxz.fws.core.DomainException;
-import io.github.krloxz.fws.core.PersonName;
-import io.github.krloxz.fws.freelancer.application.FreelancersApiController;
-import io.github.krloxz.fws.freelancer.application.dtos.FreelancerDto;
+import io.github.krloxz.fws.freelancer.domain.FreelancerRepository;
 import io.github.krloxz.fws.project.domain.Freelancer;
 import io.github.krloxz.fws.project.domain.FreelancerId;
 import io.github.krloxz.fws.project.domain.FreelancerService;
 
 /**
- * Basic implementation of the {@link FreelancerService} that uses the
- * {@link FreelancersApiController} to fetch the freelancer data.
+ * Basic implementation of the {@link FreelancerService} that reads the freelancer names straight
+ * from the {@link FreelancerRepository}, without loading the whole freelancer aggregate.
  *
  * @author Carlos Gomez
  */
 @Component
 class BasicFreelancerService implements FreelancerService {
 
-  private final FreelancersApiController controller;
+  private final FreelancerRepository repository;
 
-  BasicFreelancerService(final FreelancersApiController controller) {
-    this.controller = controller;
+  BasicFreelancerService(final FreelancerRepository repository) {
+    this.repository = repository;
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Freelancer findFreelancer(final FreelancerId id) {
-    try {
-      return Optional.of(id)
-          .map(FreelancerId::value)
-          .map(UUID::toString)
-          .map(this.controller::get)
-          .map(EntityModel::getContent)
-          .map(this::toFreelancer)
-          .orElseThrow();
-    } catch (final ResponseStatusException e) {
-      if (HttpStatus.NOT_FOUND == e.getStatusCode()) {
-        throw new DomainException("Freelancer is not allowed to join this project", e);
-      }
-      throw e;
-    }
+    return this.repository.findNameById(id.value())
+        .map(name -> new Freelancer(id, name))
+        .orElseThrow(() -> new DomainException("Freelancer is not allowed to join this project"));
   }
 
-  private Freelancer toFreelancer(final FreelancerDto dto) {
-    return new Freelancer(
-        new FreelancerId(UUID.fromString(dto.id().orElseThrow())),
-        PersonName.builder()
-            .first(dto.firstName())
-            .last(dto.lastName())
-            .middle(dto.middleName())
-            .build());
+  @Override
+  @Transactional(readOnly = true)
+  public List<Freelancer> findFreelancers(final Collection<FreelancerId> ids) {
+    final var distinctIds = new LinkedHashSet<>(ids);
+    final var names = this.repository.findNamesByIds(distinctIds.stream().map(FreelancerId::value).toList());
+    return distinctIds.stream()
+        .map(id -> Optional.ofNullable(names.get(id.value()))
+            .map(name -> new Freelancer(id, name))
+            .orElseThrow(() -> new DomainException(
+                "Freelancer %s is not allowed to join this project", id.value())))
+        .toList();
   }
 
 }
@@ -0,0 +1,132 @@
+package io.github.krloxz.fws.freelancer.infra;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.github.krloxz.fws.core.KeysetPage;
+import io.github.krloxz.fws.core.KeysetSpec;
+import io.github.krloxz.fws.core.OffsetPage;
+import io.github.krloxz.fws.core.PageSpec;
+import io.github.krloxz.fws.core.PersonName;
+import io.github.krloxz.fws.freelancer.domain.Freelancer;
+import io.github.krloxz.fws.freelancer.domain.FreelancerCriteria;
+import io.github.krloxz.fws.freelancer.domain.FreelancerRepository;
+import io.github.krloxz.fws.support.AggregateCache;
+import io.github.krloxz.fws.support.AggregateCaches;
+
+/**
+ * {@link FreelancerRepository} decorator that caches the freelancers found by ID.
+ * <p>
+ * Cached freelancers are recorded as snapshots of the decorated repository, so updates are computed
+ * against the state the caller actually saw. Writes go straight to the decorated repository and
+ * evict the written freelancers, see {@link AggregateCache} for how the cache stays consistent with
+ * the surrounding transactions.
+ *
+ * @author Carlos Gomez
+ */
+@Primary
+@Repository
+@Transactional(propagation = Propagation.MANDATORY)
+class CachingFreelancerRepository implements FreelancerRepository {
+
+  private final JooqFreelancerRepository delegate;
+  private final AggregateCache<UUID, Freelancer> cache;
+
+  CachingFreelancerRepository(
+      final JooqFreelancerRepository delegate,
+      final AggregateCaches caches,
+      @Value("${fws.freelancers.cache.maximum-size:10000}") final long maximumSize) {
+    this.delegate = delegate;
+    this.cache = caches.create("freelancers", maximumSize, Freelancer::version);
+  }
+
+  @Override
+  public void deleteAll() {
+    this.cache.evictAll();
+    this.delegate.deleteAll();
+  }
+
+  @Override
+  public Freelancer save(final Freelancer freelancer) {
+    this.cache.evict(freelancer.id());
+    return this.delegate.save(freelancer);
+  }
+
+  @Override
+  public List<Freelancer> saveAll(final List<Freelancer> freelancers) {
+    freelancers.forEach(freelancer -> this.cache.evict(freelancer.id()));
+    return this.delegate.saveAll(freelancers);
+  }
+
+  @Override
+  public Freelancer update(final Freelancer freelancer) {
+    this.cache.evict(freelancer.id());
+    return this.delegate.update(freelancer);
+  }
+
+  @Override
+  public List<Freelancer> updateAll(final List<Freelancer> freelancers) {
+    freelancers.forEach(freelancer -> this.cache.evict(freelancer.id()));
+    return this.delegate.updateAll(freelancers);
+  }
+
+  @Override
+  public OffsetPage<Freelancer> findAllBy(final FreelancerCriteria criteria, final PageSpec pageSpec) {
+    return this.delegate.findAllBy(criteria, pageSpec);
+  }
+
+  @Override
+  public KeysetPage<Freelancer> findAllBy(final FreelancerCriteria criteria, final KeysetSpec keysetSpec) {
+    return this.delegate.findAllBy(criteria, keysetSpec);
+  }
+
+  @Override
+  public void forEach(final Consumer<? super Freelancer> action) {
+    this.delegate.forEach(action);
+  }
+
+  @Override
+  public Optional<Freelancer> findById(final UUID id) {
+    return this.cache.get(id, this.delegate::findById)
+        .map(this.delegate::snapshot);
+  }
+
+  @Override
+  public Optional<PersonName> findNameById(final UUID id) {
+    return this.delegate.findNameById(id);
+  }
+
+  @Override
+  public List<Freelancer> findAllById(final Collection<UUID> ids) {
+    return this.cache.getAll(ids, this.delegate::findAllById, Freelancer::id)
+        .stream()
+        .map(this.delegate::snapshot)
+        .toList();
+  }
+
+  @Override
+  public Map<UUID, PersonName> findNamesByIds(final Collection<UUID> ids) {
+    return this.delegate.findNamesByIds(ids);
+  }
+
+  @Override
+  public int count() {
+    return this.delegate.count();
+  }
+
+  @Override
+  public int count(final FreelancerCriteria criteria) {
+    return this.delegate.count(criteria);
+  }
+
+}
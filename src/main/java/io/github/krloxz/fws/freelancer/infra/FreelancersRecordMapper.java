@@ -3,6 +3,7 @@ package io.github.krloxz.fws.freelancer.infra;
 import static io.github.krloxz.fws.freelancer.infra.jooq.Tables.ADDRESSES;
 import static io.github.krloxz.fws.freelancer.infra.jooq.Tables.COMMUNICATION_CHANNELS;
 import static io.github.krloxz.fws.freelancer.infra.jooq.Tables.FREELANCERS;
+import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.joining;
 
 import java.util.List;
@@ -15,6 +16,7 @@ import org.jooq.Record;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
+import io.github.krloxz.fws.core.PersonName;
 import io.github.krloxz.fws.freelancer.domain.CommunicationChannel;
 import io.github.krloxz.fws.freelancer.domain.Freelancer;
 import io.github.krloxz.fws.freelancer.domain.Gender;
@@ -37,6 +39,7 @@ abstract class FreelancersRecordMapper {
   @Mapping(target = "middleName", source = "name.middle")
   @Mapping(target = "hourlyWageAmount", source = "wage.amount")
   @Mapping(target = "hourlyWageCurrency", source = "wage.currency")
+  @Mapping(target = "version", ignore = true)
   public abstract FreelancersRecord toFreelancersRecord(Freelancer freelancer);
 
   @Mapping(target = "freelancerId", source = "id")
@@ -60,6 +63,41 @@ abstract class FreelancersRecordMapper {
     return fromRecords(freelancersRecord, addressesRecord, channelsRecords);
   }
 
+  /**
+   * Rebuilds several freelancers from the records of a single query that joins them with their
+   * addresses and communication channels.
+   *
+   * @param ids
+   *        the IDs of the freelancers to rebuild, in the order they should be returned
+   * @param records
+   *        the joined records of all the freelancers, in any order
+   * @return the rebuilt freelancers ordered as the given IDs, IDs with no records are skipped
+   */
+  public List<Freelancer> fromRecords(final List<UUID> ids, final List<Record> records) {
+    final var recordsById = records.stream()
+        .collect(groupingBy(record -> record.get(FREELANCERS.ID)));
+    return ids.stream()
+        .map(recordsById::get)
+        .filter(Objects::nonNull)
+        .map(this::fromRecords)
+        .toList();
+  }
+
+  /**
+   * Maps the name columns of a freelancers record.
+   *
+   * @param record
+   *        a record with the first, last and middle name columns of the freelancers table
+   * @return the freelancer's name
+   */
+  public PersonName toPersonName(final Record record) {
+    return PersonName.builder()
+        .first(record.get(FREELANCERS.FIRST_NAME))
+        .last(record.get(FREELANCERS.LAST_NAME))
+        .middle(Optional.ofNullable(record.get(FREELANCERS.MIDDLE_NAME)))
+        .build();
+  }
+
   @Mapping(target = "freelancerId", source = "id")
   @Mapping(target = "value_", source = "channel.value")
   abstract CommunicationChannelsRecord toCommunicationChannelsRecord(CommunicationChannel channel, UUID id);
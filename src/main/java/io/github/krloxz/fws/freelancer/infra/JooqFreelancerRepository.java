@@ -3,23 +3,53 @@ package io.github.krloxz.fws.freelancer.infra;
 import static io.github.krloxz.fws.freelancer.infra.jooq.Tables.ADDRESSES;
 import static io.github.krloxz.fws.freelancer.infra.jooq.Tables.COMMUNICATION_CHANNELS;
 import static io.github.krloxz.fws.freelancer.infra.jooq.Tables.FREELANCERS;
+import static io.github.krloxz.fws.freelancer.infra.jooq.Tables.FREELANCERS_COUNT;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Query;
 import org.jooq.Record;
-import org.jooq.Record1;
+import org.jooq.Result;
 import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import io.github.krloxz.fws.core.KeysetPage;
+import io.github.krloxz.fws.core.KeysetSpec;
+import io.github.krloxz.fws.core.OffsetPage;
 import io.github.krloxz.fws.core.PageSpec;
+import io.github.krloxz.fws.core.PersonName;
 import io.github.krloxz.fws.freelancer.domain.Freelancer;
+import io.github.krloxz.fws.freelancer.domain.FreelancerCriteria;
 import io.github.krloxz.fws.freelancer.domain.FreelancerRepository;
+import io.github.krloxz.fws.freelancer.domain.Gender;
+import io.github.krloxz.fws.freelancer.infra.jooq.tables.records.CommunicationChannelsRecord;
+import io.github.krloxz.fws.support.AggregateSnapshots;
+import io.github.krloxz.fws.support.Change;
+import io.github.krloxz.fws.support.ChangeFeed;
+import io.github.krloxz.fws.support.CountStrategy;
+import io.github.krloxz.fws.support.KeysetQueries;
+import io.github.krloxz.fws.support.RecordChanges;
+import io.github.krloxz.fws.support.SortFields;
 
 /**
  * JOOQ implementation of the {@link FreelancerRepository}.
@@ -30,17 +60,42 @@ import io.github.krloxz.fws.freelancer.domain.FreelancerRepository;
 @Transactional(propagation = Propagation.MANDATORY)
 class JooqFreelancerRepository implements FreelancerRepository {
 
+  private static final Map<String, Field<?>> SORTABLE_FIELDS = Map.of(
+      "lastName", FREELANCERS.LAST_NAME,
+      "wage", FREELANCERS.HOURLY_WAGE_AMOUNT,
+      "weeklyAvailability", FREELANCERS.WEEKLY_AVAILABILITY);
+
+  private static final Field<Integer> TOTAL = DSL.count().over().as("total");
+
+  private static final String RESOURCE = "freelancers";
+
   private final DSLContext create;
   private final FreelancersRecordMapper mapper;
+  private final ChangeFeed changeFeed;
+  private final CountStrategy countStrategy;
+  private final int fetchSize;
+  private final AggregateSnapshots<UUID, Freelancer> snapshots = new AggregateSnapshots<>();
 
-  JooqFreelancerRepository(final DSLContext create, final FreelancersRecordMapper mapper) {
+  JooqFreelancerRepository(
+      final DSLContext create,
+      final FreelancersRecordMapper mapper,
+      final ChangeFeed changeFeed,
+      @Value("${fws.freelancers.count-strategy:window}") final CountStrategy countStrategy,
+      @Value("${fws.freelancers.fetch-size:500}") final int fetchSize) {
     this.create = create;
     this.mapper = mapper;
+    this.changeFeed = changeFeed;
+    this.countStrategy = countStrategy;
+    this.fetchSize = fetchSize;
   }
 
   @Override
   public void deleteAll() {
     this.create.delete(FREELANCERS).execute();
+    this.create.update(FREELANCERS_COUNT)
+        .set(FREELANCERS_COUNT.ROW_COUNT, 0L)
+        .execute();
+    this.snapshots.clear();
   }
 
   @Override
@@ -51,50 +106,289 @@ class JooqFreelancerRepository implements FreelancerRepository {
     this.create.insertInto(ADDRESSES)
         .set(this.mapper.toAddressesRecord(freelancer))
         .execute();
-    this.mapper.toCommunicationChannelsRecords(freelancer)
-        .forEach(channel -> this.create.insertInto(COMMUNICATION_CHANNELS).set(channel).execute());
-    return freelancer;
+    RecordChanges.insertAll(this.create, this.mapper.toCommunicationChannelsRecords(freelancer));
+    this.create.update(FREELANCERS_COUNT)
+        .set(FREELANCERS_COUNT.ROW_COUNT, FREELANCERS_COUNT.ROW_COUNT.plus(1))
+        .execute();
+    this.changeFeed.record(RESOURCE, freelancer.id(), Change.Type.CREATED);
+    return snapshot(freelancer);
   }
 
+  @Override
+  public List<Freelancer> saveAll(final List<Freelancer> freelancers) {
+    if (freelancers.isEmpty()) {
+      return List.of();
+    }
+    RecordChanges.insertAll(this.create, freelancers.stream()
+        .map(this.mapper::toFreelancersRecord)
+        .toList());
+    RecordChanges.insertAll(this.create, freelancers.stream()
+        .map(this.mapper::toAddressesRecord)
+        .toList());
+    RecordChanges.insertAll(this.create, freelancers.stream()
+        .flatMap(freelancer -> this.mapper.toCommunicationChannelsRecords(freelancer).stream())
+        .toList());
+    this.create.update(FREELANCERS_COUNT)
+        .set(FREELANCERS_COUNT.ROW_COUNT, FREELANCERS_COUNT.ROW_COUNT.plus(freelancers.size()))
+        .execute();
+    this.changeFeed.recordAll(RESOURCE, freelancers.stream().map(Freelancer::id).toList(), Change.Type.CREATED);
+    return freelancers.stream()
+        .map(this::snapshot)
+        .toList();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Compares the given freelancer with the state loaded during the current transaction, or with the
+   * stored state if it wasn't loaded, and writes only the changed columns and rows.
+   * <p>
+   * Any change increases the freelancer's version, as long as the stored version is still the one
+   * of the given freelancer, so that concurrent updates can't overwrite each other.
+   *
+   * @return the updated freelancer with its new version
+   * @throws OptimisticLockingFailureException
+   *         if the freelancer was updated since the given version was loaded
+   */
   @Override
   public Freelancer update(final Freelancer freelancer) {
-    this.create.update(FREELANCERS)
-        .set(this.mapper.toFreelancersRecord(freelancer))
+    final var stored = this.snapshots.get(freelancer.id())
+        .or(() -> findById(freelancer.id()))
+        .orElseThrow(() -> new IllegalArgumentException("Freelancer doesn't exist: " + freelancer.id()));
+    final var changes = freelancerChanges(stored, freelancer);
+    if (isUnchanged(stored, freelancer, changes)) {
+      return snapshot(freelancer);
+    }
+    checkVersion(freelancer, versionedUpdate(freelancer, changes).execute());
+    executeAll(childWrites(stored, freelancer));
+    this.changeFeed.record(RESOURCE, freelancer.id(), Change.Type.UPDATED);
+    return updated(freelancer);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Same as {@link #update(Freelancer)}, except that the stored state of the freelancers that
+   * weren't loaded during the current transaction is read with a single query, and the changed rows
+   * of all the freelancers, including their addresses and communication channels, are written with a
+   * single JDBC batch.
+   *
+   * @throws OptimisticLockingFailureException
+   *         if any of the freelancers was updated since the given version was loaded
+   */
+  @Override
+  public List<Freelancer> updateAll(final List<Freelancer> freelancers) {
+    final var stored = storedStates(freelancers);
+    final var changed = new ArrayList<Freelancer>();
+    final var changedIds = new HashSet<UUID>();
+    final var updates = new ArrayList<Query>();
+    final var childWrites = new ArrayList<Query>();
+    freelancers.forEach(freelancer -> {
+      final var changes = freelancerChanges(stored.get(freelancer.id()), freelancer);
+      if (!isUnchanged(stored.get(freelancer.id()), freelancer, changes)) {
+        changed.add(freelancer);
+        changedIds.add(freelancer.id());
+        updates.add(versionedUpdate(freelancer, changes));
+        childWrites.addAll(childWrites(stored.get(freelancer.id()), freelancer));
+      }
+    });
+    if (!updates.isEmpty()) {
+      // The versioned updates go first, so their counts tell which freelancers were updated concurrently
+      final var counts = this.create.batch(Stream.concat(updates.stream(), childWrites.stream()).toList()).execute();
+      for (var i = 0; i < changed.size(); i++) {
+        checkVersion(changed.get(i), counts[i]);
+      }
+    }
+    this.changeFeed.recordAll(RESOURCE, changed.stream().map(Freelancer::id).toList(), Change.Type.UPDATED);
+    return freelancers.stream()
+        .map(freelancer -> changedIds.contains(freelancer.id()) ? updated(freelancer) : snapshot(freelancer))
+        .toList();
+  }
+
+  private Map<UUID, Freelancer> storedStates(final List<Freelancer> freelancers) {
+    final var stored = new HashMap<UUID, Freelancer>();
+    final var missing = new ArrayList<UUID>();
+    freelancers.forEach(freelancer -> this.snapshots.get(freelancer.id())
+        .ifPresentOrElse(snapshot -> stored.put(freelancer.id(), snapshot), () -> missing.add(freelancer.id())));
+    findAllByIds(missing).forEach(freelancer -> stored.put(freelancer.id(), snapshot(freelancer)));
+    for (final var id : missing) {
+      if (!stored.containsKey(id)) {
+        throw new IllegalArgumentException("Freelancer doesn't exist: " + id);
+      }
+    }
+    return stored;
+  }
+
+  private Map<Field<?>, Object> freelancerChanges(final Freelancer stored, final Freelancer updated) {
+    return RecordChanges.changedValues(
+        this.mapper.toFreelancersRecord(stored), this.mapper.toFreelancersRecord(updated));
+  }
+
+  private static boolean isUnchanged(
+      final Freelancer stored, final Freelancer updated, final Map<Field<?>, Object> changes) {
+    return changes.isEmpty()
+        && stored.address().equals(updated.address())
+        && stored.communicationChannels().equals(updated.communicationChannels());
+  }
+
+  private Query versionedUpdate(final Freelancer freelancer, final Map<Field<?>, Object> changes) {
+    return this.create.update(FREELANCERS)
+        .set(changes)
+        .set(FREELANCERS.VERSION, FREELANCERS.VERSION.plus(1))
         .where(FREELANCERS.ID.eq(freelancer.id()))
-        .execute();
-    this.create.delete(ADDRESSES)
-        .where(ADDRESSES.FREELANCER_ID.eq(freelancer.id()))
-        .execute();
-    this.create.insertInto(ADDRESSES)
-        .set(this.mapper.toAddressesRecord(freelancer))
-        .execute();
-    this.create.delete(COMMUNICATION_CHANNELS)
-        .where(COMMUNICATION_CHANNELS.FREELANCER_ID.eq(freelancer.id()))
-        .execute();
-    this.mapper.toCommunicationChannelsRecords(freelancer)
-        .forEach(channel -> this.create.insertInto(COMMUNICATION_CHANNELS).set(channel).execute());
-    return freelancer;
+        .and(FREELANCERS.VERSION.eq(freelancer.version()));
+  }
+
+  private static void checkVersion(final Freelancer freelancer, final int updated) {
+    if (updated == 0) {
+      throw new OptimisticLockingFailureException(
+          "Freelancer %s was updated after version %d was loaded".formatted(freelancer.id(), freelancer.version()));
+    }
+  }
+
+  /**
+   * Returns the statements that write the changed addresses and communication channels of a
+   * freelancer, so that they can be executed along with the statements of other freelancers.
+   */
+  private List<Query> childWrites(final Freelancer stored, final Freelancer updated) {
+    final var writes = new ArrayList<Query>();
+    RecordChanges.updateChanges(
+        this.create,
+        ADDRESSES,
+        this.mapper.toAddressesRecord(stored),
+        this.mapper.toAddressesRecord(updated),
+        ADDRESSES.FREELANCER_ID.eq(updated.id()))
+        .ifPresent(writes::add);
+    writes.addAll(communicationChannelWrites(stored, updated));
+    return writes;
+  }
+
+  private void executeAll(final List<Query> queries) {
+    if (queries.size() == 1) {
+      queries.get(0).execute();
+    } else if (!queries.isEmpty()) {
+      this.create.batch(queries).execute();
+    }
+  }
+
+  private Freelancer updated(final Freelancer freelancer) {
+    return snapshot(
+        Freelancer.builder()
+            .from(freelancer)
+            .version(freelancer.version() + 1)
+            .build());
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The total, when requested, is computed as configured by the {@link CountStrategy}: either by the
+   * page query itself, or from the counter maintained by {@link #save(Freelancer)} and
+   * {@link #deleteAll()} when no criteria are given.
+   */
   @Override
-  public List<Freelancer> findAllBy(final PageSpec pageSpec) {
-    return this.create.select(FREELANCERS.ID)
+  public OffsetPage<Freelancer> findAllBy(final FreelancerCriteria criteria, final PageSpec pageSpec) {
+    final List<Field<?>> fields = pageSpec.withTotal() && !usesCounter(criteria)
+        ? List.of(FREELANCERS.ID, TOTAL)
+        : List.of(FREELANCERS.ID);
+    final var rows = this.create.select(fields)
         .from(FREELANCERS)
-        .orderBy(FREELANCERS.LAST_NAME)
-        .offset(pageSpec.number() * pageSpec.size())
-        .limit(pageSpec.size())
-        .fetch()
-        .map(Record1::value1)
-        .stream()
-        .map(this::findRecordById)
-        .flatMap(Optional::stream)
-        .map(this.mapper::fromRecords)
-        .collect(Collectors.toList());
+        .where(matching(criteria))
+        .orderBy(SortFields.of(pageSpec, SORTABLE_FIELDS, FREELANCERS.LAST_NAME, FREELANCERS.ID))
+        .offset(pageSpec.offset())
+        .limit(pageSpec.size() + 1)
+        .fetch();
+    final var ids = new ArrayList<>(rows.getValues(FREELANCERS.ID));
+    final var hasNext = ids.size() > pageSpec.size();
+    if (hasNext) {
+      ids.remove(ids.size() - 1);
+    }
+    return new OffsetPage<>(findAllByIds(ids), total(criteria, pageSpec, rows), hasNext);
+  }
+
+  @Override
+  public KeysetPage<Freelancer> findAllBy(final FreelancerCriteria criteria, final KeysetSpec keysetSpec) {
+    final var ids = new ArrayList<>(
+        this.create.select(FREELANCERS.ID)
+            .from(FREELANCERS)
+            .where(matching(criteria))
+            .and(KeysetQueries.seek(keysetSpec, FREELANCERS.LAST_NAME, FREELANCERS.ID))
+            .orderBy(KeysetQueries.order(keysetSpec, FREELANCERS.LAST_NAME, FREELANCERS.ID))
+            .limit(keysetSpec.size() + 1)
+            .fetch(FREELANCERS.ID));
+    final var hasMore = ids.size() > keysetSpec.size();
+    if (hasMore) {
+      ids.remove(ids.size() - 1);
+    }
+    if (keysetSpec.isBackwards()) {
+      Collections.reverse(ids);
+    }
+    return KeysetPage.of(
+        keysetSpec, findAllByIds(ids), hasMore, freelancer -> freelancer.name().last(), Freelancer::id);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The freelancers are read through a lazy cursor that fetches the configured number of rows at a
+   * time, the rows of each freelancer are adjacent since they are sorted by ID. The freelancers are
+   * not recorded as snapshots, which would keep all of them in memory until the transaction ends.
+   */
+  @Override
+  public void forEach(final Consumer<? super Freelancer> action) {
+    try (var cursor = this.create.select(DSL.asterisk())
+        .from(FREELANCERS)
+        .join(ADDRESSES).onKey()
+        .leftJoin(COMMUNICATION_CHANNELS).onKey()
+        .orderBy(FREELANCERS.ID)
+        .fetchSize(this.fetchSize)
+        .fetchLazy()) {
+      var records = new ArrayList<Record>();
+      for (final Record record : cursor) {
+        if (!records.isEmpty() && !records.get(0).get(FREELANCERS.ID).equals(record.get(FREELANCERS.ID))) {
+          action.accept(this.mapper.fromRecords(records));
+          records = new ArrayList<>();
+        }
+        records.add(record);
+      }
+      if (!records.isEmpty()) {
+        action.accept(this.mapper.fromRecords(records));
+      }
+    }
   }
 
   @Override
   public Optional<Freelancer> findById(final UUID id) {
-    return findRecordById(id).map(this.mapper::fromRecords);
+    return findRecordById(id)
+        .map(this.mapper::fromRecords)
+        .map(this::snapshot);
+  }
+
+  @Override
+  public List<Freelancer> findAllById(final Collection<UUID> ids) {
+    return findAllByIds(ids.stream().distinct().toList())
+        .stream()
+        .map(this::snapshot)
+        .toList();
+  }
+
+  @Override
+  public Optional<PersonName> findNameById(final UUID id) {
+    return this.create.select(FREELANCERS.FIRST_NAME, FREELANCERS.LAST_NAME, FREELANCERS.MIDDLE_NAME)
+        .from(FREELANCERS)
+        .where(FREELANCERS.ID.eq(id))
+        .fetchOptional(this.mapper::toPersonName);
+  }
+
+  @Override
+  public Map<UUID, PersonName> findNamesByIds(final Collection<UUID> ids) {
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
+    return this.create.select(FREELANCERS.ID, FREELANCERS.FIRST_NAME, FREELANCERS.LAST_NAME, FREELANCERS.MIDDLE_NAME)
+        .from(FREELANCERS)
+        .where(FREELANCERS.ID.in(ids))
+        .fetchMap(FREELANCERS.ID, this.mapper::toPersonName);
   }
 
   @Override
@@ -102,6 +396,33 @@ class JooqFreelancerRepository implements FreelancerRepository {
     return this.create.selectCount().from(FREELANCERS).fetchOne().value1();
   }
 
+  @Override
+  public int count(final FreelancerCriteria criteria) {
+    return this.create.selectCount()
+        .from(FREELANCERS)
+        .where(matching(criteria))
+        .fetchOne()
+        .value1();
+  }
+
+  private boolean usesCounter(final FreelancerCriteria criteria) {
+    return this.countStrategy == CountStrategy.COUNTER && criteria.equals(FreelancerCriteria.any());
+  }
+
+  private Optional<Long> total(final FreelancerCriteria criteria, final PageSpec pageSpec, final Result<?> rows) {
+    if (!pageSpec.withTotal()) {
+      return Optional.empty();
+    }
+    if (usesCounter(criteria)) {
+      return Optional.of(this.create.fetchValue(FREELANCERS_COUNT.ROW_COUNT));
+    }
+    if (rows.isNotEmpty()) {
+      return Optional.of(rows.get(0).get(TOTAL).longValue());
+    }
+    // No rows to carry the total, either there are no matches or the page is past the last one
+    return Optional.of(pageSpec.offset() == 0 ? 0L : count(criteria));
+  }
+
   private Optional<List<Record>> findRecordById(final UUID id) {
     final var records = this.create.select(DSL.asterisk())
         .from(FREELANCERS)
@@ -112,4 +433,104 @@ class JooqFreelancerRepository implements FreelancerRepository {
     return records.isEmpty() ? Optional.empty() : Optional.of(records);
   }
 
+  /**
+   * Loads the freelancers with the given IDs, including their addresses and communication channels,
+   * in a single query.
+   *
+   * @param ids
+   *        the freelancer IDs
+   * @return the found freelancers in the same order as the given IDs
+   */
+  private List<Freelancer> findAllByIds(final List<UUID> ids) {
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    final var records = this.create.select(DSL.asterisk())
+        .from(FREELANCERS)
+        .join(ADDRESSES).onKey()
+        .leftJoin(COMMUNICATION_CHANNELS).onKey()
+        .where(FREELANCERS.ID.in(ids))
+        .fetch();
+    return this.mapper.fromRecords(ids, records);
+  }
+
+  /**
+   * Records the state of a freelancer that was loaded elsewhere, e.g. from a cache, so that a later
+   * update in the current transaction writes only what changed from that state.
+   *
+   * @param freelancer
+   *        the freelancer as it was loaded
+   * @return the given freelancer
+   */
+  public Freelancer snapshot(final Freelancer freelancer) {
+    this.snapshots.put(freelancer.id(), freelancer);
+    return freelancer;
+  }
+
+  private List<Query> communicationChannelWrites(final Freelancer stored, final Freelancer updated) {
+    final var storedChannels = this.mapper.toCommunicationChannelsRecords(stored)
+        .stream()
+        .collect(toMap(CommunicationChannelsRecord::getId, identity()));
+    final var updatedChannels = this.mapper.toCommunicationChannelsRecords(updated);
+    final var updatedIds = updatedChannels.stream()
+        .map(CommunicationChannelsRecord::getId)
+        .collect(toSet());
+    final var removedIds = storedChannels.keySet()
+        .stream()
+        .filter(id -> !updatedIds.contains(id))
+        .toList();
+    final var writes = new ArrayList<Query>();
+    if (!removedIds.isEmpty()) {
+      writes.add(
+          this.create.delete(COMMUNICATION_CHANNELS)
+              .where(COMMUNICATION_CHANNELS.ID.in(removedIds)));
+    }
+    updatedChannels.forEach(channel -> {
+      if (storedChannels.containsKey(channel.getId())) {
+        RecordChanges.updateChanges(
+            this.create,
+            COMMUNICATION_CHANNELS,
+            storedChannels.get(channel.getId()),
+            channel,
+            COMMUNICATION_CHANNELS.ID.eq(channel.getId()))
+            .ifPresent(writes::add);
+      } else {
+        writes.add(this.create.insertInto(COMMUNICATION_CHANNELS).set(channel));
+      }
+    });
+    return writes;
+  }
+
+  /**
+   * Translates the given criteria into a condition on the freelancers table. Address criteria are
+   * evaluated by a subquery on the addresses table, so it's only joined when actually filtered.
+   */
+  private static Condition matching(final FreelancerCriteria criteria) {
+    final var addressConditions = Stream.of(
+        criteria.city().map(ADDRESSES.CITY::eq),
+        criteria.state().map(ADDRESSES.STATE::eq),
+        criteria.country().map(ADDRESSES.COUNTRY::eq))
+        .flatMap(Optional::stream)
+        .toList();
+    final var addressCondition = addressConditions.isEmpty()
+        ? Optional.<Condition>empty()
+        : Optional.of(
+            FREELANCERS.ID.in(
+                DSL.select(ADDRESSES.FREELANCER_ID)
+                    .from(ADDRESSES)
+                    .where(addressConditions)));
+    return DSL.and(
+        Stream.of(
+            addressCondition,
+            criteria.currency().map(FREELANCERS.HOURLY_WAGE_CURRENCY::eq),
+            criteria.minWage().map(FREELANCERS.HOURLY_WAGE_AMOUNT::ge),
+            criteria.maxWage().map(FREELANCERS.HOURLY_WAGE_AMOUNT::le),
+            criteria.minWeeklyAvailability().map(FREELANCERS.WEEKLY_AVAILABILITY::ge),
+            criteria.gender().map(Gender::name).map(FREELANCERS.GENDER::eq),
+            criteria.minBirthDate().map(FREELANCERS.BIRTH_DATE::ge),
+            criteria.maxBirthDate().map(FREELANCERS.BIRTH_DATE::le))
+            .flatMap(Optional::stream)
+            .toList());
+  }
+
 }
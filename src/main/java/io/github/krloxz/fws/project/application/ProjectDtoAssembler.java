@@ -5,18 +5,23 @@ import static io.github.krloxz.fws.support.AffordanceLink.affordanceLinkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.data.web.SlicedResourcesAssembler;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.LinkRelation;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.hateoas.SlicedModel;
 import org.springframework.hateoas.mediatype.hal.HalModelBuilder;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
+import io.github.krloxz.fws.core.KeysetPage;
 import io.github.krloxz.fws.support.AffordanceLink;
+import io.github.krloxz.fws.support.KeysetLinks;
 
 /**
  * Assembles {@link ProjectDto} instances into {@link EntityModel} instances.
@@ -27,9 +32,13 @@ import io.github.krloxz.fws.support.AffordanceLink;
 class ProjectDtoAssembler implements RepresentationModelAssembler<ProjectDto, EntityModel<ProjectDto>> {
 
   private final PagedResourcesAssembler<ProjectDto> pageAssembler;
+  private final SlicedResourcesAssembler<ProjectDto> sliceAssembler;
 
-  ProjectDtoAssembler(final PagedResourcesAssembler<ProjectDto> pageAssembler) {
+  ProjectDtoAssembler(
+      final PagedResourcesAssembler<ProjectDto> pageAssembler,
+      final SlicedResourcesAssembler<ProjectDto> sliceAssembler) {
     this.pageAssembler = pageAssembler;
+    this.sliceAssembler = sliceAssembler;
   }
 
   @Override
@@ -41,24 +50,28 @@ class ProjectDtoAssembler implements RepresentationModelAssembler<ProjectDto, En
         .toList();
     final var model = HalModelBuilder.halModelOf(dto.withoutFreelancers())
         .embed(freelancers, LinkRelation.of("freelancers"))
-        .link(affordanceLinkTo(method().projects(null)).withRel(IanaLinkRelations.COLLECTION))
+        .link(affordanceLinkTo(method().projects((Boolean) null, null)).withRel(IanaLinkRelations.COLLECTION))
         .link(affordanceLinkTo(method().project(dto.id().orElse(""))).withSelfRel())
         .build();
     if (!isProjectFullyAllocated(dto)) {
-      model.add(affordanceLinkTo(method().join(dto.id().orElse(""), null)));
+      model.add(affordanceLinkTo(method().join(dto.id().orElse(""), null, null)));
     }
     return (EntityModel<ProjectDto>) model;
   }
 
   /**
-   * Converts a {@link Page} of {@link ProjectDto}'s into a {@link PagedModel} instance.
+   * Converts a {@link Slice} of {@link ProjectDto}'s into a {@link PagedModel} instance when it's a
+   * {@link Page}, or into a {@link SlicedModel} instance otherwise, which lacks the total count of
+   * items and the link to the last page.
    *
-   * @param page
-   *        the page to convert
-   * @return the converted page
+   * @param slice
+   *        the slice to convert
+   * @return the converted slice
    */
-  CollectionModel<EntityModel<ProjectDto>> toPagedModel(final Page<ProjectDto> page) {
-    final var pagedModel = this.pageAssembler.toModel(page, this)
+  CollectionModel<EntityModel<ProjectDto>> toPagedModel(final Slice<ProjectDto> slice) {
+    final var pagedModel = (slice instanceof final Page<ProjectDto> page
+        ? this.pageAssembler.toModel(page, this)
+        : this.sliceAssembler.toModel(slice, this))
         .add(affordanceLinkTo(method().create(null)));
     final var affordanceLinks = pagedModel.getLinks().stream()
         .map(AffordanceLink::toAffordanceLink)
@@ -66,6 +79,20 @@ class ProjectDtoAssembler implements RepresentationModelAssembler<ProjectDto, En
     return pagedModel.removeLinks().add(affordanceLinks);
   }
 
+  /**
+   * Converts a {@link KeysetPage} of {@link ProjectDto}'s into a {@link CollectionModel} whose
+   * navigation links carry the cursors of the page.
+   *
+   * @param page
+   *        the page to convert
+   * @return the converted page
+   */
+  CollectionModel<EntityModel<ProjectDto>> toPagedModel(final KeysetPage<ProjectDto> page) {
+    return toCollectionModel(page.content())
+        .add(KeysetLinks.of(page))
+        .add(affordanceLinkTo(method().create(null)));
+  }
+
   private EntityModel<FreelancerDto> toModel(final FreelancerDto dto) {
     return EntityModel.of(dto)
         .add(affordanceLink("/freelancers/" + dto.id()).withSelfRel());
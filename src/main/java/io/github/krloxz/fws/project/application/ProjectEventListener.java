@@ -1,10 +1,10 @@
 package io.github.krloxz.fws.project.application;
 
-import org.springframework.modulith.events.ApplicationModuleListener;
 import org.springframework.stereotype.Component;
 
 import io.github.krloxz.fws.project.domain.FreelancerProjectCommitmentFailed;
 import io.github.krloxz.fws.project.domain.ProjectRepository;
+import io.github.krloxz.fws.support.PartitionedModuleListener;
 
 /**
  * Event listener for events related to projects.
@@ -22,11 +22,12 @@ public class ProjectEventListener {
 
   /**
    * Removes the freelancer from the project when the freelancer's commitment to the project fails.
+   * Events are partitioned by project, so the changes to a project are applied one at a time.
    *
    * @param event
    *        the details of how the freelancer's commitment to the project failed
    */
-  @ApplicationModuleListener
+  @PartitionedModuleListener(partitionBy = "projectId()")
   public void on(final FreelancerProjectCommitmentFailed event) {
     this.repository.findById(event.projectId())
         .map(project -> project.remove(event.freelancerId()))
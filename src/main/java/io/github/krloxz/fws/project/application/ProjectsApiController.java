@@ -1,12 +1,15 @@
 package io.github.krloxz.fws.project.application;
 
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.http.HttpStatus;
@@ -17,6 +20,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
@@ -25,9 +29,15 @@ import io.github.krloxz.fws.core.PageSpec;
 import io.github.krloxz.fws.project.domain.Freelancer;
 import io.github.krloxz.fws.project.domain.FreelancerId;
 import io.github.krloxz.fws.project.domain.FreelancerService;
+import io.github.krloxz.fws.project.domain.Project;
 import io.github.krloxz.fws.project.domain.ProjectId;
 import io.github.krloxz.fws.project.domain.ProjectRepository;
 import io.github.krloxz.fws.support.DomainEventPublisher;
+import io.github.krloxz.fws.support.EventChains;
+import io.github.krloxz.fws.support.PageSpecs;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 
 /**
  * Restful controller that exposes the Projects API.
@@ -39,38 +49,75 @@ import io.github.krloxz.fws.support.DomainEventPublisher;
 @RequestMapping("/projects")
 public class ProjectsApiController {
 
+  private static final Set<String> SORTABLE_PROPERTIES = Set.of("name", "requiredHours");
+
   private final ProjectRepository repository;
   private final ProjectDtoMapper mapper;
   private final ProjectDtoAssembler assembler;
   private final FreelancerService freelancerService;
   private final DomainEventPublisher eventPublisher;
+  private final EventChains eventChains;
 
   ProjectsApiController(
       final ProjectRepository repository,
       final ProjectDtoMapper mapper,
       final ProjectDtoAssembler assembler,
       final FreelancerService freelancerService,
-      final DomainEventPublisher eventPublisher) {
+      final DomainEventPublisher eventPublisher,
+      final EventChains eventChains) {
     this.repository = repository;
     this.mapper = mapper;
     this.assembler = assembler;
     this.freelancerService = freelancerService;
     this.eventPublisher = eventPublisher;
+    this.eventChains = eventChains;
   }
 
   /**
+   * @param withTotal
+   *        whether to include the total number of projects, omitting it saves counting them but the
+   *        link to the last page can no longer be provided, defaults to {@code true}
    * @param pageRequest
-   *        details of the requested page
+   *        details of the requested page, which can be sorted by one of {@code name} or
+   *        {@code requiredHours}
    * @return a paginated list of projects
+   * @throws ResponseStatusException
+   *         400 - if the requested sort is not supported
    */
   @GetMapping
   @Transactional(readOnly = true)
-  public CollectionModel<EntityModel<ProjectDto>> projects(final Pageable pageRequest) {
+  public CollectionModel<EntityModel<ProjectDto>> projects(
+      final Boolean withTotal,
+      final Pageable pageRequest) {
     return pageRequest.toOptional()
-        .map(this::toPageSpec)
+        .map(pageable -> toPageSpec(pageable, !Boolean.FALSE.equals(withTotal)))
         .map(this.repository::findAllBy)
-        .map(this.mapper::toDto)
-        .map(dtos -> getPage(dtos, pageRequest))
+        .map(page -> page.map(this.mapper::toDto))
+        .map(page -> PageSpecs.toSlice(page, pageRequest))
+        .map(this.assembler::toPagedModel)
+        .orElseThrow();
+  }
+
+  /**
+   * Lists projects using keyset pagination, which keeps a constant cost regardless of how deep the
+   * requested page is.
+   *
+   * @param cursor
+   *        opaque token taken from the links of a previous page, blank to request the first page
+   * @param pageRequest
+   *        details of the requested page, only the page size is considered
+   * @return a list of projects sorted by name along with the links to navigate through the list
+   * @throws ResponseStatusException
+   *         400 - if the cursor is not valid
+   */
+  @GetMapping(params = "cursor")
+  @Transactional(readOnly = true)
+  public CollectionModel<EntityModel<ProjectDto>> projects(
+      @RequestParam final String cursor,
+      final Pageable pageRequest) {
+    return Optional.of(PageSpecs.keysetOf(cursor, pageRequest))
+        .map(this.repository::findAllBy)
+        .map(page -> page.map(this.mapper::toDto))
         .map(this.assembler::toPagedModel)
         .orElseThrow();
   }
@@ -112,17 +159,25 @@ public class ProjectsApiController {
 
   /**
    * Allows a freelancer to join a project.
+   * <p>
+   * The freelancer's availability is reduced afterwards, and the join is reverted if the freelancer
+   * can't commit the hours. The response carries a {@value EventChains#TOKEN_HEADER} header whose
+   * token can be awaited to find out when all that has finished.
    *
    * @param id
    *        the project identifier
    * @param request
    *        the join request
+   * @param response
+   *        the current response, where the consistency token is set
    * @return the updated project data
    */
   @PostMapping("/{id}/join")
   public EntityModel<ProjectDto> join(
       @PathVariable final String id,
-      @Validated @RequestBody final JoinRequest request) {
+      @Validated @RequestBody final JoinRequest request,
+      final HttpServletResponse response) {
+    startEventChain(response);
     return projectId(id)
         .flatMap(this.repository::findById)
         .map(project -> project.assign(findFreelancer(request), request.committedHours()))
@@ -133,12 +188,44 @@ public class ProjectsApiController {
         .orElseThrow();
   }
 
-  private PageSpec toPageSpec(final Pageable pageable) {
-    return new PageSpec(pageable.getPageNumber(), pageable.getPageSize());
+  /**
+   * Allows several freelancers to join a project at once, applying all the assignments in a single
+   * update of the project.
+   *
+   * @param id
+   *        the project identifier
+   * @param requests
+   *        the join requests, one per freelancer
+   * @param response
+   *        the current response, where the consistency token is set, as in
+   *        {@link #join(String, JoinRequest, HttpServletResponse)}
+   * @return the updated project data
+   * @throws ResponseStatusException
+   *         400 - if a freelancer is requested to join more than once
+   */
+  @PostMapping("/{id}/join/bulk")
+  public EntityModel<ProjectDto> joinAll(
+      @PathVariable final String id,
+      @Valid @NotEmpty @RequestBody final List<JoinRequest> requests,
+      final HttpServletResponse response) {
+    rejectDuplicateFreelancers(requests);
+    startEventChain(response);
+    return projectId(id)
+        .flatMap(this.repository::findById)
+        .map(project -> assignAll(project, requests))
+        .map(this.repository::update)
+        .map(this.eventPublisher::publish)
+        .map(this.mapper::toDto)
+        .map(this.assembler::toModel)
+        .orElseThrow();
   }
 
-  private Page<ProjectDto> getPage(final List<ProjectDto> content, final Pageable pageRequest) {
-    return PageableExecutionUtils.getPage(content, pageRequest, this.repository::count);
+  private void startEventChain(final HttpServletResponse response) {
+    response.setHeader(EventChains.TOKEN_HEADER, this.eventChains.start().toString());
+  }
+
+  private PageSpec toPageSpec(final Pageable pageable, final boolean withTotal) {
+    return PageSpecs.of(pageable, SORTABLE_PROPERTIES, withTotal);
   }
 
   private Optional<ProjectId> projectId(final String id) {
@@ -153,4 +240,31 @@ public class ProjectsApiController {
     return this.freelancerService.findFreelancer(new FreelancerId(request.freelancerId()));
   }
 
+  private static void rejectDuplicateFreelancers(final List<JoinRequest> requests) {
+    final var freelancerIds = new HashSet<UUID>();
+    requests.stream()
+        .map(request -> UUID.fromString(request.freelancerId()))
+        .filter(freelancerId -> !freelancerIds.add(freelancerId))
+        .findFirst()
+        .ifPresent(freelancerId -> {
+          throw new ResponseStatusException(
+              HttpStatus.BAD_REQUEST, "Freelancer %s can only join once per request".formatted(freelancerId));
+        });
+  }
+
+  private Project assignAll(final Project project, final List<JoinRequest> requests) {
+    final var freelancerIds = requests.stream()
+        .map(request -> new FreelancerId(request.freelancerId()))
+        .toList();
+    final var freelancers = this.freelancerService.findFreelancers(freelancerIds)
+        .stream()
+        .collect(toMap(Freelancer::id, identity()));
+    var assigned = project;
+    for (final var request : requests) {
+      assigned = assigned.assign(
+          freelancers.get(new FreelancerId(request.freelancerId())), request.committedHours());
+    }
+    return assigned;
+  }
+
 }
@@ -1,5 +1,8 @@
 package io.github.krloxz.fws.project.domain;
 
+import java.util.Collection;
+import java.util.List;
+
 import io.github.krloxz.fws.core.DomainException;
 
 /**
@@ -20,4 +23,15 @@ public interface FreelancerService {
    */
   Freelancer findFreelancer(FreelancerId id) throws DomainException;
 
+  /**
+   * Finds several freelancers at once.
+   *
+   * @param ids
+   *        the freelancers' identifiers
+   * @return the found freelancers, one per distinct identifier
+   * @throws DomainException
+   *         if any of the freelancers is not found
+   */
+  List<Freelancer> findFreelancers(Collection<FreelancerId> ids) throws DomainException;
+
 }
@@ -55,6 +55,9 @@ public abstract class Project implements DomainEventSupplier {
    * @return a new instance of this project with the freelancer assigned
    */
   public Project assign(final Freelancer freelancer, final int committedHours) {
+    if (freelancers().stream().anyMatch(member -> member.id().equals(freelancer.id()))) {
+      throw new DomainException("The freelancer has already joined this project");
+    }
     final var hoursLeft = requiredHours() - allocatedHours();
     if (committedHours > hoursLeft) {
       throw new DomainException(
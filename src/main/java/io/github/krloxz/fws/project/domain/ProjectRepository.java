@@ -1,8 +1,10 @@
 package io.github.krloxz.fws.project.domain;
 
-import java.util.List;
 import java.util.Optional;
 
+import io.github.krloxz.fws.core.KeysetPage;
+import io.github.krloxz.fws.core.KeysetSpec;
+import io.github.krloxz.fws.core.OffsetPage;
 import io.github.krloxz.fws.core.PageSpec;
 
 /**
@@ -22,13 +24,26 @@ public interface ProjectRepository {
   Optional<Project> findById(ProjectId id);
 
   /**
-   * Returns a page of projects meeting the criteria specified by the given {@link PageSpec}.
+   * Returns a page of projects meeting the criteria specified by the given {@link PageSpec}, sorted
+   * by name and ID unless another order is specified.
+   * <p>
+   * The total count of projects is only included when requested by the page specification.
    *
    * @param pageSpec
    *        specification for the page to return
-   * @return a {@link List} with the requested page of projects
+   * @return the requested page of projects
    */
-  List<Project> findAllBy(PageSpec pageSpec);
+  OffsetPage<Project> findAllBy(PageSpec pageSpec);
+
+  /**
+   * Returns a page of projects sorted by name and ID, starting at the position specified by the
+   * given {@link KeysetSpec}.
+   *
+   * @param keysetSpec
+   *        specification for the page to return, the cursor key is the project's name
+   * @return the requested page of projects
+   */
+  KeysetPage<Project> findAllBy(KeysetSpec keysetSpec);
 
   /**
    * @return the total count of projects
@@ -0,0 +1,83 @@
+package io.github.krloxz.fws.project.infra;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.github.krloxz.fws.core.KeysetPage;
+import io.github.krloxz.fws.core.KeysetSpec;
+import io.github.krloxz.fws.core.OffsetPage;
+import io.github.krloxz.fws.core.PageSpec;
+import io.github.krloxz.fws.project.domain.Project;
+import io.github.krloxz.fws.project.domain.ProjectId;
+import io.github.krloxz.fws.project.domain.ProjectRepository;
+import io.github.krloxz.fws.support.AggregateCache;
+import io.github.krloxz.fws.support.AggregateCaches;
+
+/**
+ * {@link ProjectRepository} decorator that caches the projects found by ID.
+ * <p>
+ * Projects are cached along with the version of their stored state, so that a copy loaded before
+ * an update can never replace the updated one. Cached projects are recorded as snapshots of the
+ * decorated repository, so updates are computed against the state the caller actually saw, and
+ * concurrent joins never drop each other's team members. Writes go straight to the decorated
+ * repository and evict the written projects, see {@link AggregateCache} for how the cache stays
+ * consistent with the surrounding transactions.
+ *
+ * @author Carlos Gomez
+ */
+@Primary
+@Repository
+@Transactional(propagation = Propagation.MANDATORY)
+class CachingProjectRepository implements ProjectRepository {
+
+  private final JooqProjectRepository delegate;
+  private final AggregateCache<ProjectId, VersionedProject> cache;
+
+  CachingProjectRepository(
+      final JooqProjectRepository delegate,
+      final AggregateCaches caches,
+      @Value("${fws.projects.cache.maximum-size:10000}") final long maximumSize) {
+    this.delegate = delegate;
+    this.cache = caches.create("projects", maximumSize, VersionedProject::version);
+  }
+
+  @Override
+  public Optional<Project> findById(final ProjectId id) {
+    return this.cache.get(id, this.delegate::findVersionedById)
+        .map(VersionedProject::project)
+        .map(this.delegate::snapshot);
+  }
+
+  @Override
+  public OffsetPage<Project> findAllBy(final PageSpec pageSpec) {
+    return this.delegate.findAllBy(pageSpec);
+  }
+
+  @Override
+  public KeysetPage<Project> findAllBy(final KeysetSpec keysetSpec) {
+    return this.delegate.findAllBy(keysetSpec);
+  }
+
+  @Override
+  public int count() {
+    return this.delegate.count();
+  }
+
+  @Override
+  public Project save(final Project project) {
+    this.cache.evict(project.id());
+    return this.delegate.save(project);
+  }
+
+  @Override
+  public Project update(final Project project) {
+    this.cache.evict(project.id());
+    return this.delegate.update(project);
+  }
+
+}
@@ -2,23 +2,46 @@ package io.github.krloxz.fws.project.infra;
 
 import static io.github.krloxz.fws.project.infra.jooq.Tables.FREELANCERS;
 import static io.github.krloxz.fws.project.infra.jooq.Tables.PROJECTS;
+import static io.github.krloxz.fws.project.infra.jooq.Tables.PROJECTS_COUNT;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Query;
 import org.jooq.Record;
-import org.jooq.Record1;
+import org.jooq.Result;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import io.github.krloxz.fws.core.DomainException;
+import io.github.krloxz.fws.core.KeysetPage;
+import io.github.krloxz.fws.core.KeysetSpec;
+import io.github.krloxz.fws.core.OffsetPage;
 import io.github.krloxz.fws.core.PageSpec;
+import io.github.krloxz.fws.project.domain.Freelancer;
 import io.github.krloxz.fws.project.domain.Project;
 import io.github.krloxz.fws.project.domain.ProjectId;
 import io.github.krloxz.fws.project.domain.ProjectRepository;
+import io.github.krloxz.fws.project.infra.jooq.tables.records.FreelancersRecord;
+import io.github.krloxz.fws.support.AggregateSnapshots;
+import io.github.krloxz.fws.support.Change;
+import io.github.krloxz.fws.support.ChangeFeed;
+import io.github.krloxz.fws.support.CountStrategy;
+import io.github.krloxz.fws.support.KeysetQueries;
+import io.github.krloxz.fws.support.RecordChanges;
+import io.github.krloxz.fws.support.SortFields;
 
 /**
  * JOOQ implementation of the {@link ProjectRepository}.
@@ -29,33 +52,81 @@ import io.github.krloxz.fws.project.domain.ProjectRepository;
 @Transactional(propagation = Propagation.MANDATORY)
 class JooqProjectRepository implements ProjectRepository {
 
+  private static final Map<String, Field<?>> SORTABLE_FIELDS = Map.of(
+      "name", PROJECTS.NAME,
+      "requiredHours", PROJECTS.REQUIRED_HOURS);
+
+  private static final Field<Integer> TOTAL = DSL.count().over().as("total");
+
+  private static final String RESOURCE = "projects";
+
   private final DSLContext create;
   private final ProjectsRecordMapper mapper;
+  private final ChangeFeed changeFeed;
+  private final CountStrategy countStrategy;
+  private final AggregateSnapshots<ProjectId, Project> snapshots = new AggregateSnapshots<>();
 
-  JooqProjectRepository(final DSLContext create, final ProjectsRecordMapper mapper) {
+  JooqProjectRepository(
+      final DSLContext create,
+      final ProjectsRecordMapper mapper,
+      final ChangeFeed changeFeed,
+      @Value("${fws.projects.count-strategy:window}") final CountStrategy countStrategy) {
     this.create = create;
     this.mapper = mapper;
+    this.changeFeed = changeFeed;
+    this.countStrategy = countStrategy;
   }
 
   @Override
   public Optional<Project> findById(final ProjectId id) {
-    return findRecordById(id.value()).map(this.mapper::fromRecords);
+    return findRecordById(id.value())
+        .map(this.mapper::fromRecords)
+        .map(this::snapshot);
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The total, when requested, is computed as configured by the {@link CountStrategy}: either by the
+   * page query itself, or from the counter maintained by {@link #save(Project)}.
+   */
   @Override
-  public List<Project> findAllBy(final PageSpec pageSpec) {
-    return this.create.select(PROJECTS.ID)
+  public OffsetPage<Project> findAllBy(final PageSpec pageSpec) {
+    final List<Field<?>> fields = pageSpec.withTotal() && !usesCounter()
+        ? List.of(PROJECTS.ID, TOTAL)
+        : List.of(PROJECTS.ID);
+    final var rows = this.create.select(fields)
         .from(PROJECTS)
-        .orderBy(PROJECTS.NAME)
-        .offset(pageSpec.number() * pageSpec.size())
-        .limit(pageSpec.size())
-        .fetch()
-        .map(Record1::value1)
-        .stream()
-        .map(this::findRecordById)
-        .flatMap(Optional::stream)
-        .map(this.mapper::fromRecords)
-        .collect(Collectors.toList());
+        .orderBy(SortFields.of(pageSpec, SORTABLE_FIELDS, PROJECTS.NAME, PROJECTS.ID))
+        .offset(pageSpec.offset())
+        .limit(pageSpec.size() + 1)
+        .fetch();
+    final var ids = new ArrayList<>(rows.getValues(PROJECTS.ID));
+    final var hasNext = ids.size() > pageSpec.size();
+    if (hasNext) {
+      ids.remove(ids.size() - 1);
+    }
+    return new OffsetPage<>(findAllByIds(ids), total(pageSpec, rows), hasNext);
+  }
+
+  @Override
+  public KeysetPage<Project> findAllBy(final KeysetSpec keysetSpec) {
+    final var ids = new ArrayList<>(
+        this.create.select(PROJECTS.ID)
+            .from(PROJECTS)
+            .where(KeysetQueries.seek(keysetSpec, PROJECTS.NAME, PROJECTS.ID))
+            .orderBy(KeysetQueries.order(keysetSpec, PROJECTS.NAME, PROJECTS.ID))
+            .limit(keysetSpec.size() + 1)
+            .fetch(PROJECTS.ID));
+    final var hasMore = ids.size() > keysetSpec.size();
+    if (hasMore) {
+      ids.remove(ids.size() - 1);
+    }
+    if (keysetSpec.isBackwards()) {
+      Collections.reverse(ids);
+    }
+    return KeysetPage.of(
+        keysetSpec, findAllByIds(ids), hasMore, Project::name, project -> project.id().value());
   }
 
   @Override
@@ -65,28 +136,156 @@ class JooqProjectRepository implements ProjectRepository {
 
   @Override
   public Project save(final Project project) {
+    final var projectsRecord = this.mapper.toProjectsRecord(project);
+    projectsRecord.setAllocatedHours(allocatedHours(project));
     this.create.insertInto(PROJECTS)
-        .set(this.mapper.toProjectsRecord(project))
+        .set(projectsRecord)
         .execute();
-    this.mapper.toFreelancersRecords(project)
-        .forEach(freelancer -> this.create.insertInto(FREELANCERS).set(freelancer).execute());
-    return project;
+    RecordChanges.insertAll(this.create, this.mapper.toFreelancersRecords(project));
+    this.create.update(PROJECTS_COUNT)
+        .set(PROJECTS_COUNT.ROW_COUNT, PROJECTS_COUNT.ROW_COUNT.plus(1))
+        .execute();
+    this.changeFeed.record(RESOURCE, project.id().value(), Change.Type.CREATED);
+    return snapshot(project);
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Compares the given project with the state loaded during the current transaction, or with the
+   * stored state if it wasn't loaded, and writes only the changed columns and team members.
+   * <p>
+   * The allocation limit is enforced by the database: the project's allocated hours are increased
+   * with a conditional update that only succeeds while they don't exceed the required hours, so
+   * concurrent updates can't over-allocate a project even when they were computed from the same
+   * stored state. The same update increases the project's version whenever anything changed.
+   *
+   * @throws DomainException
+   *         if the new team members exceed the hours left in the project
+   */
   @Override
   public Project update(final Project project) {
-    this.create.update(PROJECTS)
-        .set(this.mapper.toProjectsRecord(project))
-        .where(PROJECTS.ID.eq(project.id().value()))
-        .execute();
-    this.create.delete(FREELANCERS)
-        .where(FREELANCERS.PROJECT_ID.eq(project.id().value()))
+    final var stored = this.snapshots.get(project.id())
+        .or(() -> findById(project.id()))
+        .orElseThrow(() -> new IllegalArgumentException("Project doesn't exist: " + project.id().value()));
+    final var changes = RecordChanges.changedValues(
+        this.mapper.toProjectsRecord(stored), this.mapper.toProjectsRecord(project));
+    if (!changes.isEmpty() || !stored.freelancers().equals(project.freelancers())) {
+      updateProject(project.id(), changes, allocatedHours(project) - allocatedHours(stored));
+      updateFreelancers(stored, project);
+      this.changeFeed.record(RESOURCE, project.id().value(), Change.Type.UPDATED);
+    }
+    return snapshot(project);
+  }
+
+  /**
+   * Finds a project along with the version of its stored state.
+   *
+   * @param id
+   *        the project identifier
+   * @return the project and its version, if found
+   */
+  public Optional<VersionedProject> findVersionedById(final ProjectId id) {
+    return findRecordById(id.value())
+        .map(records -> new VersionedProject(
+            snapshot(this.mapper.fromRecords(records)), records.get(0).get(PROJECTS.VERSION)));
+  }
+
+  /**
+   * Writes the changed project columns, increases the project's version and atomically adds the
+   * given hours to the project's allocated hours, as long as the result doesn't exceed the project's
+   * required hours.
+   * <p>
+   * The conditional update takes a lock on the project row only, which serializes the concurrent
+   * updates of the same project until their transactions complete.
+   *
+   * @param id
+   *        the project identifier
+   * @param changes
+   *        the changed project columns
+   * @param hours
+   *        the hours to allocate, negative to release hours
+   */
+  private void updateProject(final ProjectId id, final Map<Field<?>, Object> changes, final int hours) {
+    final var updated = this.create.update(PROJECTS)
+        .set(changes)
+        .set(PROJECTS.VERSION, PROJECTS.VERSION.plus(1))
+        .set(PROJECTS.ALLOCATED_HOURS, PROJECTS.ALLOCATED_HOURS.plus(hours))
+        .where(PROJECTS.ID.eq(id.value()))
+        .and(PROJECTS.ALLOCATED_HOURS.plus(hours).le(PROJECTS.REQUIRED_HOURS))
         .execute();
-    this.mapper.toFreelancersRecords(project)
-        .forEach(freelancer -> this.create.insertInto(FREELANCERS).set(freelancer).execute());
+    if (updated == 0) {
+      throw new DomainException("Cannot allocate %d hour(s), not enough hours left", hours);
+    }
+  }
+
+  private static int allocatedHours(final Project project) {
+    return project.freelancers().stream().mapToInt(Freelancer::allocatedHours).sum();
+  }
+
+  /**
+   * Records the state of a project that was loaded elsewhere, e.g. from a cache, so that a later
+   * update in the current transaction writes only what changed from that state.
+   *
+   * @param project
+   *        the project as it was loaded
+   * @return the given project
+   */
+  public Project snapshot(final Project project) {
+    this.snapshots.put(project.id(), project);
     return project;
   }
 
+  private void updateFreelancers(final Project stored, final Project updated) {
+    final var storedFreelancers = this.mapper.toFreelancersRecords(stored)
+        .stream()
+        .collect(toMap(FreelancersRecord::getId, identity()));
+    final var updatedFreelancers = this.mapper.toFreelancersRecords(updated);
+    final var updatedIds = updatedFreelancers.stream()
+        .map(FreelancersRecord::getId)
+        .collect(toSet());
+    final var removedIds = storedFreelancers.keySet()
+        .stream()
+        .filter(id -> !updatedIds.contains(id))
+        .toList();
+    if (!removedIds.isEmpty()) {
+      this.create.delete(FREELANCERS)
+          .where(FREELANCERS.PROJECT_ID.eq(updated.id().value()))
+          .and(FREELANCERS.ID.in(removedIds))
+          .execute();
+    }
+    RecordChanges.insertAll(this.create, updatedFreelancers.stream()
+        .filter(freelancer -> !storedFreelancers.containsKey(freelancer.getId()))
+        .toList());
+    updatedFreelancers.stream()
+        .filter(freelancer -> storedFreelancers.containsKey(freelancer.getId()))
+        .forEach(freelancer -> RecordChanges.updateChanges(
+            this.create,
+            FREELANCERS,
+            storedFreelancers.get(freelancer.getId()),
+            freelancer,
+            FREELANCERS.ID.eq(freelancer.getId()))
+            .ifPresent(Query::execute));
+  }
+
+  private boolean usesCounter() {
+    return this.countStrategy == CountStrategy.COUNTER;
+  }
+
+  private Optional<Long> total(final PageSpec pageSpec, final Result<?> rows) {
+    if (!pageSpec.withTotal()) {
+      return Optional.empty();
+    }
+    if (usesCounter()) {
+      return Optional.of(this.create.fetchValue(PROJECTS_COUNT.ROW_COUNT));
+    }
+    if (rows.isNotEmpty()) {
+      return Optional.of(rows.get(0).get(TOTAL).longValue());
+    }
+    // No rows to carry the total, either there are no projects or the page is past the last one
+    return Optional.of(pageSpec.offset() == 0 ? 0L : count());
+  }
+
   private Optional<List<Record>> findRecordById(final UUID id) {
     final var records = this.create.select()
         .from(PROJECTS)
@@ -96,4 +295,23 @@ class JooqProjectRepository implements ProjectRepository {
     return records.isEmpty() ? Optional.empty() : Optional.of(records);
   }
 
+  /**
+   * Loads the projects with the given IDs, including their freelancers, in a single query.
+   *
+   * @param ids
+   *        the project IDs
+   * @return the found projects in the same order as the given IDs
+   */
+  private List<Project> findAllByIds(final List<UUID> ids) {
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    final var records = this.create.select()
+        .from(PROJECTS)
+        .leftJoin(FREELANCERS).onKey()
+        .where(PROJECTS.ID.in(ids))
+        .fetch();
+    return this.mapper.fromRecords(ids, records);
+  }
+
 }
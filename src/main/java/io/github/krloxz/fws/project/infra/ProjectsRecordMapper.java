@@ -2,9 +2,11 @@ package io.github.krloxz.fws.project.infra;
 
 import static io.github.krloxz.fws.project.infra.jooq.Tables.FREELANCERS;
 import static io.github.krloxz.fws.project.infra.jooq.Tables.PROJECTS;
+import static java.util.stream.Collectors.groupingBy;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
 
 import org.jooq.Record;
 import org.mapstruct.Mapper;
@@ -27,7 +29,17 @@ import io.github.krloxz.fws.support.OptionalMapper;
 @Mapper(componentModel = "spring", uses = OptionalMapper.class)
 abstract class ProjectsRecordMapper {
 
+  /**
+   * Maps the project's own columns, allocated hours and version are excluded because the repository
+   * maintains them with guarded updates.
+   *
+   * @param project
+   *        the project to map
+   * @return the projects record
+   */
   @Mapping(target = "id", source = "id.value")
+  @Mapping(target = "allocatedHours", ignore = true)
+  @Mapping(target = "version", ignore = true)
   public abstract ProjectsRecord toProjectsRecord(Project project);
 
   public List<FreelancersRecord> toFreelancersRecords(final Project project) {
@@ -53,6 +65,26 @@ abstract class ProjectsRecordMapper {
     return fromRecords(projectsRecord, freelancersRecords);
   }
 
+  /**
+   * Rebuilds several projects from the records of a single query that joins them with their
+   * freelancers.
+   *
+   * @param ids
+   *        the IDs of the projects to rebuild, in the order they should be returned
+   * @param records
+   *        the joined records of all the projects, in any order
+   * @return the rebuilt projects ordered as the given IDs, IDs with no records are skipped
+   */
+  public List<Project> fromRecords(final List<UUID> ids, final List<Record> records) {
+    final var recordsById = records.stream()
+        .collect(groupingBy(record -> record.get(PROJECTS.ID)));
+    return ids.stream()
+        .map(recordsById::get)
+        .filter(Objects::nonNull)
+        .map(this::fromRecords)
+        .toList();
+  }
+
   @Mapping(target = "id.value", source = "projectsRecord.id")
   @Mapping(target = "freelancers", source = "freelancersRecords")
   @Mapping(target = "domainEvents", ignore = true)
@@ -0,0 +1,12 @@
+package io.github.krloxz.fws.project.infra;
+
+import io.github.krloxz.fws.project.domain.Project;
+
+/**
+ * A project along with the version of its stored state, which increases with every update.
+ *
+ * @author Carlos Gomez
+ */
+record VersionedProject(Project project, long version) {
+
+}
@@ -0,0 +1,247 @@
+package io.github.krloxz.fws.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded cache of immutable aggregates that only ever holds committed state.
+ * <p>
+ * Entries are evicted following Caffeine's W-TinyLFU policy, and hits, misses and evictions are
+ * published as cache metrics under the given name.
+ * <p>
+ * The cache is kept consistent with the surrounding transactions:
+ * <ul>
+ * <li>Aggregates written by the current transaction are always loaded from the repository, so the
+ * transaction reads its own writes, and they are never cached since they aren't committed yet.</li>
+ * <li>Written aggregates are evicted right away and once more when the transaction completes,
+ * whether it commits or rolls back.</li>
+ * <li>Aggregates loaded while a write was taking place are not cached, since they may hold the state
+ * that the write is replacing.</li>
+ * <li>Versioned aggregates never replace a cached copy with a higher version.</li>
+ * </ul>
+ *
+ * @param <K>
+ *        type of the aggregate identifiers
+ * @param <V>
+ *        type of the aggregates, which must be immutable
+ * @author Carlos Gomez
+ */
+public class AggregateCache<K, V> {
+
+  private final Cache<K, V> cache;
+  private final ToLongFunction<V> versionOf;
+  private final AtomicLong writes = new AtomicLong();
+
+  /**
+   * Creates a new cache and binds its metrics to the given registry.
+   * <p>
+   * Use {@link AggregateCaches} to create caches instead, so that the cache can be evicted along
+   * with all the others.
+   *
+   * @param name
+   *        the cache name used to tag its metrics
+   * @param maximumSize
+   *        the maximum number of aggregates kept in the cache
+   * @param versionOf
+   *        function that returns the version of an aggregate's stored state
+   * @param registry
+   *        the registry where the cache metrics are published
+   */
+  AggregateCache(
+      final String name,
+      final long maximumSize,
+      final ToLongFunction<V> versionOf,
+      final MeterRegistry registry) {
+    this.versionOf = versionOf;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(registry, this.cache, name);
+  }
+
+  /**
+   * Returns the cached aggregate with the given identifier, loading it when it isn't cached.
+   *
+   * @param id
+   *        the aggregate identifier
+   * @param loader
+   *        function that loads the aggregate from the repository
+   * @return the aggregate, if found
+   */
+  public Optional<V> get(final K id, final Function<K, Optional<V>> loader) {
+    if (writtenInCurrentTransaction(id)) {
+      return loader.apply(id);
+    }
+    final var cached = this.cache.getIfPresent(id);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    final var writesBeforeLoading = this.writes.get();
+    final var loaded = loader.apply(id);
+    loaded.ifPresent(aggregate -> cache(id, aggregate, writesBeforeLoading));
+    return loaded;
+  }
+
+  /**
+   * Returns the cached aggregates with the given identifiers, loading the ones that aren't cached at
+   * once.
+   *
+   * @param ids
+   *        the aggregate identifiers
+   * @param loader
+   *        function that loads several aggregates from the repository
+   * @param idOf
+   *        function that returns the identifier of an aggregate
+   * @return the found aggregates in the same order as the given identifiers, without duplicates
+   */
+  public List<V> getAll(
+      final Collection<K> ids,
+      final Function<List<K>, List<V>> loader,
+      final Function<V, K> idOf) {
+    final var found = new HashMap<K, V>();
+    final var missing = new ArrayList<K>();
+    ids.stream().distinct().forEach(id -> {
+      final var cached = writtenInCurrentTransaction(id) ? null : this.cache.getIfPresent(id);
+      if (cached != null) {
+        found.put(id, cached);
+      } else {
+        missing.add(id);
+      }
+    });
+    if (!missing.isEmpty()) {
+      final var writesBeforeLoading = this.writes.get();
+      loader.apply(missing).forEach(aggregate -> {
+        final var id = idOf.apply(aggregate);
+        found.put(id, aggregate);
+        if (!writtenInCurrentTransaction(id)) {
+          cache(id, aggregate, writesBeforeLoading);
+        }
+      });
+    }
+    return ids.stream()
+        .distinct()
+        .map(found::get)
+        .filter(Objects::nonNull)
+        .toList();
+  }
+
+  /**
+   * Evicts an aggregate that is being written by the current transaction.
+   *
+   * @param id
+   *        the identifier of the written aggregate
+   */
+  public void evict(final K id) {
+    evictNow(id);
+    writtenIds().ifPresent(ids -> ids.add(id));
+  }
+
+  /**
+   * Evicts all the aggregates.
+   */
+  public void evictAll() {
+    evictAllNow();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(final int status) {
+          evictAllNow();
+        }
+      });
+    }
+  }
+
+  private void evictAllNow() {
+    this.writes.incrementAndGet();
+    this.cache.invalidateAll();
+  }
+
+  private void cache(final K id, final V aggregate, final long writesBeforeLoading) {
+    this.cache.asMap().compute(
+        id, (key, current) -> writesBeforeLoading == this.writes.get() && isNewer(aggregate, current)
+            ? aggregate
+            : current);
+  }
+
+  private boolean isNewer(final V aggregate, final V current) {
+    return current == null || this.versionOf.applyAsLong(aggregate) >= this.versionOf.applyAsLong(current);
+  }
+
+  private void evictNow(final K id) {
+    this.writes.incrementAndGet();
+    this.cache.invalidate(id);
+  }
+
+  private boolean writtenInCurrentTransaction(final K id) {
+    return currentWrites().filter(written -> written.ids.contains(id)).isPresent();
+  }
+
+  private Optional<Set<K>> writtenIds() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return Optional.empty();
+    }
+    final var written = currentWrites().orElseGet(() -> {
+      final var registered = new WrittenIds();
+      TransactionSynchronizationManager.registerSynchronization(registered);
+      return registered;
+    });
+    return Optional.of(written.ids);
+  }
+
+  /**
+   * Finds the identifiers written by the current transaction among the transaction's
+   * synchronizations, so that a transaction started with {@code REQUIRES_NEW} doesn't see the writes
+   * of the outer one while it's suspended.
+   */
+  @SuppressWarnings("unchecked")
+  private Optional<WrittenIds> currentWrites() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return Optional.empty();
+    }
+    return TransactionSynchronizationManager.getSynchronizations()
+        .stream()
+        .filter(WrittenIds.class::isInstance)
+        .map(synchronization -> (WrittenIds) synchronization)
+        .filter(written -> written.owner() == this)
+        .findFirst();
+  }
+
+  /**
+   * The identifiers of the aggregates written by a transaction, evicted once more when it
+   * completes.
+   */
+  private final class WrittenIds implements TransactionSynchronization {
+
+    private final Set<K> ids = new HashSet<>();
+
+    AggregateCache<K, V> owner() {
+      return AggregateCache.this;
+    }
+
+    @Override
+    public void afterCompletion(final int status) {
+      this.ids.forEach(AggregateCache.this::evictNow);
+    }
+
+  }
+
+}
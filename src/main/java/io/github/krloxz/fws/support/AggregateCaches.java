@@ -0,0 +1,81 @@
+package io.github.krloxz.fws.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToLongFunction;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Creates the {@link AggregateCache}s used by the repositories and keeps track of them, so that
+ * they can be evicted at once when the database is modified behind the repositories' back, e.g.
+ * when it's cleaned up or migrated.
+ *
+ * @author Carlos Gomez
+ */
+@Component
+public class AggregateCaches {
+
+  private final MeterRegistry registry;
+  private final List<AggregateCache<?, ?>> caches = new CopyOnWriteArrayList<>();
+
+  /**
+   * Creates a new instance of {@link AggregateCaches}.
+   *
+   * @param registry
+   *        the registry where the cache metrics are published
+   */
+  public AggregateCaches(final MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * Creates a new cache.
+   *
+   * @param name
+   *        the cache name used to tag its metrics
+   * @param maximumSize
+   *        the maximum number of aggregates kept in the cache
+   * @param <K>
+   *        type of the aggregate identifiers
+   * @param <V>
+   *        type of the aggregates, which must be immutable
+   * @return the new cache
+   */
+  public <K, V> AggregateCache<K, V> create(final String name, final long maximumSize) {
+    return create(name, maximumSize, aggregate -> 0);
+  }
+
+  /**
+   * Creates a new cache of versioned aggregates, where a cached aggregate is never replaced by a
+   * copy with a lower version.
+   *
+   * @param name
+   *        the cache name used to tag its metrics
+   * @param maximumSize
+   *        the maximum number of aggregates kept in the cache
+   * @param versionOf
+   *        function that returns the version of an aggregate's stored state
+   * @param <K>
+   *        type of the aggregate identifiers
+   * @param <V>
+   *        type of the aggregates, which must be immutable
+   * @return the new cache
+   */
+  public <K, V> AggregateCache<K, V> create(
+      final String name, final long maximumSize, final ToLongFunction<V> versionOf) {
+    final var cache = new AggregateCache<K, V>(name, maximumSize, versionOf, this.registry);
+    this.caches.add(cache);
+    return cache;
+  }
+
+  /**
+   * Evicts all the aggregates from all the caches.
+   */
+  public void evictAll() {
+    this.caches.forEach(AggregateCache::evictAll);
+  }
+
+}
@@ -0,0 +1,92 @@
+package io.github.krloxz.fws.support;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps the persisted state of the aggregates loaded by a repository during the current
+ * transaction.
+ * <p>
+ * Repositories use snapshots to find out what changed when an aggregate is updated, so that only
+ * the changed tables and rows are written. Snapshots are discarded when the transaction completes
+ * and are never kept when there is no active transaction.
+ *
+ * @param <K>
+ *        type of the aggregate identifiers
+ * @param <V>
+ *        type of the aggregates
+ * @author Carlos Gomez
+ */
+public class AggregateSnapshots<K, V> {
+
+  /**
+   * Records the persisted state of an aggregate.
+   *
+   * @param id
+   *        the aggregate identifier
+   * @param aggregate
+   *        the aggregate as it is persisted
+   */
+  public void put(final K id, final V aggregate) {
+    snapshots().ifPresent(snapshots -> snapshots.put(id, aggregate));
+  }
+
+  /**
+   * @param id
+   *        an aggregate identifier
+   * @return the persisted state of the aggregate if it was recorded during the current transaction
+   */
+  public Optional<V> get(final K id) {
+    return snapshots().map(snapshots -> snapshots.get(id));
+  }
+
+  /**
+   * Discards all the snapshots recorded during the current transaction.
+   */
+  public void clear() {
+    snapshots().ifPresent(Map::clear);
+  }
+
+  /**
+   * Finds the snapshots of the current transaction, registering them along with the transaction's
+   * synchronizations the first time, so that a transaction started with {@code REQUIRES_NEW} gets its
+   * own snapshots while the outer one is suspended.
+   */
+  @SuppressWarnings("unchecked")
+  private Optional<Map<K, V>> snapshots() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return Optional.empty();
+    }
+    final var snapshots = TransactionSynchronizationManager.getSynchronizations()
+        .stream()
+        .filter(Snapshots.class::isInstance)
+        .map(synchronization -> (Snapshots) synchronization)
+        .filter(candidate -> candidate.owner() == this)
+        .findFirst()
+        .orElseGet(() -> {
+          final var registered = new Snapshots();
+          TransactionSynchronizationManager.registerSynchronization(registered);
+          return registered;
+        });
+    return Optional.of(snapshots.aggregates);
+  }
+
+  /**
+   * The snapshots recorded by a transaction, discarded along with the transaction's
+   * synchronizations when it completes.
+   */
+  private final class Snapshots implements TransactionSynchronization {
+
+    private final Map<K, V> aggregates = new HashMap<>();
+
+    AggregateSnapshots<K, V> owner() {
+      return AggregateSnapshots.this;
+    }
+
+  }
+
+}
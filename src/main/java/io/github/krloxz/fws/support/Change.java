@@ -0,0 +1,30 @@
+package io.github.krloxz.fws.support;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * An entry of the {@link ChangeFeed}.
+ *
+ * @param position
+ *        the position of the change in the feed, which consumers pass back as their resume token
+ * @param resource
+ *        the name of the changed resource collection, e.g. {@code freelancers}
+ * @param id
+ *        the identifier of the changed resource
+ * @param type
+ *        how the resource changed
+ * @param changedAt
+ *        when the change was committed
+ * @author Carlos Gomez
+ */
+public record Change(long position, String resource, UUID id, Type type, OffsetDateTime changedAt) {
+
+  /**
+   * How a resource changed.
+   */
+  public enum Type {
+    CREATED, UPDATED
+  }
+
+}
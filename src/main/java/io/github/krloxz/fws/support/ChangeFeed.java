@@ -0,0 +1,333 @@
+package io.github.krloxz.fws.support;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Ordered feed of the changes made to the resources of the API, so that consumers can keep their
+ * copies in sync by reading only what changed since the last change they saw.
+ * <p>
+ * Repositories record their writes in the {@code feed.changes} table within the writing
+ * transaction, so the feed holds a change if and only if the write committed. Each change is given
+ * a position that grows monotonically, and changes become visible strictly in the order of their
+ * positions: a change is hidden while a transaction of this instance that may still commit a lower
+ * position is in flight, so a consumer that resumes from the last position it saw never misses a
+ * change.
+ * <p>
+ * Once a transaction commits, its changes are added to a bounded in-memory buffer that serves the
+ * consumers that keep up with the feed, while the consumers that fell behind the buffer are served
+ * from the table. The buffer only holds the changes made by this instance of the application.
+ *
+ * @author Carlos Gomez
+ */
+@Component
+public class ChangeFeed {
+
+  private static final Log LOGGER = LogFactory.getLog(ChangeFeed.class);
+  private static final Table<Record> CHANGES = DSL.table(DSL.name("feed", "changes"));
+  private static final Field<Long> POSITION = DSL.field(DSL.name("position_"), Long.class);
+  private static final Field<String> RESOURCE = DSL.field(DSL.name("resource"), String.class);
+  private static final Field<UUID> RESOURCE_ID = DSL.field(DSL.name("resource_id"), UUID.class);
+  private static final Field<String> TYPE = DSL.field(DSL.name("type"), String.class);
+  private static final Field<OffsetDateTime> CHANGED_AT = DSL.field(DSL.name("changed_at"), OffsetDateTime.class);
+
+  private final DSLContext create;
+  private final int bufferSize;
+  private final NavigableMap<Long, Change> buffer = new TreeMap<>();
+  private final List<PendingChanges> pending = new ArrayList<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition appended = this.lock.newCondition();
+  private long bufferedAfter;
+  private long highest;
+  private long visible;
+
+  ChangeFeed(final DSLContext create, @Value("${fws.changes.buffer-size:1024}") final int bufferSize) {
+    this.create = create;
+    this.bufferSize = bufferSize;
+    clear();
+  }
+
+  /**
+   * Records a change made by the current transaction, which becomes visible once the transaction
+   * commits.
+   *
+   * @param resource
+   *        the name of the changed resource collection, e.g. {@code freelancers}
+   * @param id
+   *        the identifier of the changed resource
+   * @param type
+   *        how the resource changed
+   */
+  public void record(final String resource, final UUID id, final Change.Type type) {
+    recordAll(resource, List.of(id), type);
+  }
+
+  /**
+   * Records the same change made by the current transaction to several resources, with a single
+   * insert.
+   *
+   * @param resource
+   *        the name of the changed resource collection, e.g. {@code freelancers}
+   * @param ids
+   *        the identifiers of the changed resources
+   * @param type
+   *        how the resources changed
+   */
+  public void recordAll(final String resource, final Collection<UUID> ids, final Change.Type type) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    final var changes = pendingChanges();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      changes.addAll(insert(resource, ids, type));
+      return;
+    }
+    try {
+      changes.addAll(insert(resource, ids, type));
+      changes.committed();
+    } finally {
+      changes.completed();
+    }
+  }
+
+  /**
+   * Reads the changes that follow the given position, waiting for them when there are none yet.
+   *
+   * @param since
+   *        the position of the last change already read, or 0 to read from the beginning
+   * @param limit
+   *        the maximum number of changes to read
+   * @param timeout
+   *        the maximum time to wait for changes when there are none after the given position
+   * @return the changes read, empty if none happened before the timeout
+   * @throws InterruptedException
+   *         if interrupted while waiting
+   */
+  public Changes read(final long since, final int limit, final Duration timeout) throws InterruptedException {
+    final long upTo;
+    this.lock.lock();
+    try {
+      var remaining = timeout.toNanos();
+      while (this.visible <= since && remaining > 0) {
+        remaining = this.appended.awaitNanos(remaining);
+      }
+      upTo = this.visible;
+      if (since >= this.bufferedAfter) {
+        return changes(
+            this.buffer.subMap(since, false, upTo, true)
+                .values()
+                .stream()
+                .limit(limit)
+                .toList(),
+            since);
+      }
+    } finally {
+      this.lock.unlock();
+    }
+    return changes(readPersisted(since, upTo, limit), since);
+  }
+
+  /**
+   * Forgets the buffered changes and continues from the last persisted one, e.g. when the database
+   * was cleaned up behind the feed's back.
+   */
+  public void clear() {
+    final var last = Optional.ofNullable(this.create.select(DSL.max(POSITION)).from(CHANGES).fetchOne().value1())
+        .orElse(0L);
+    this.lock.lock();
+    try {
+      this.buffer.clear();
+      this.pending.clear();
+      this.highest = last;
+      this.visible = last;
+      this.bufferedAfter = last;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private List<Change> insert(final String resource, final Collection<UUID> ids, final Change.Type type) {
+    final var changedAt = OffsetDateTime.now();
+    var insert = this.create.insertInto(CHANGES, RESOURCE, RESOURCE_ID, TYPE, CHANGED_AT);
+    for (final var id : ids) {
+      insert = insert.values(resource, id, type.name(), changedAt);
+    }
+    final var positions = insert.returningResult(POSITION)
+        .fetch()
+        .getValues(POSITION)
+        .stream()
+        .sorted()
+        .toList();
+    final var changes = new ArrayList<Change>();
+    final var idIterator = ids.iterator();
+    positions.forEach(position -> changes.add(new Change(position, resource, idIterator.next(), type, changedAt)));
+    return changes;
+  }
+
+  private List<Change> readPersisted(final long since, final long upTo, final int limit) {
+    return this.create.select(POSITION, RESOURCE, RESOURCE_ID, TYPE, CHANGED_AT)
+        .from(CHANGES)
+        .where(POSITION.gt(since).and(POSITION.le(upTo)))
+        .orderBy(POSITION)
+        .limit(limit)
+        .fetch(record -> new Change(
+            record.value1(),
+            record.value2(),
+            record.value3(),
+            Change.Type.valueOf(record.value4()),
+            record.value5()));
+  }
+
+  private static Changes changes(final List<Change> changes, final long since) {
+    return new Changes(changes, changes.isEmpty() ? since : changes.get(changes.size() - 1).position());
+  }
+
+  /**
+   * Returns the changes of the current transaction, which are kept by a synchronization rather than
+   * a bound resource so that they are suspended along with the transaction, e.g. by a nested
+   * {@code REQUIRES_NEW} transaction.
+   */
+  private PendingChanges pendingChanges() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return new PendingChanges();
+    }
+    return TransactionSynchronizationManager.getSynchronizations()
+        .stream()
+        .filter(PendingChanges.class::isInstance)
+        .map(PendingChanges.class::cast)
+        .filter(changes -> changes.feed() == this)
+        .findFirst()
+        .orElseGet(() -> {
+          final var changes = new PendingChanges();
+          TransactionSynchronizationManager.registerSynchronization(changes);
+          return changes;
+        });
+  }
+
+  /**
+   * Recomputes the highest position that can be read without skipping a lower position that is yet
+   * to be committed by a pending transaction, and wakes up the readers waiting for it.
+   */
+  private void advanceVisible() {
+    this.visible = this.pending.stream()
+        .mapToLong(changes -> changes.lowestPossible - 1)
+        .min()
+        .orElse(this.highest);
+    this.appended.signalAll();
+  }
+
+  /**
+   * Discards the buffer, so that the changes up to the highest position assigned so far are read
+   * from the table.
+   */
+  private void bypassBuffer() {
+    this.lock.lock();
+    try {
+      this.buffer.clear();
+      this.bufferedAfter = Math.max(this.bufferedAfter, this.highest);
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * The changes recorded by a transaction. While pending, the lowest position the transaction may
+   * commit is known to be above the highest position assigned before it recorded its first change,
+   * and becomes exact once its first change is inserted.
+   */
+  private final class PendingChanges implements TransactionSynchronization {
+
+    private final List<Change> changes = new ArrayList<>();
+    private long lowestPossible;
+
+    PendingChanges() {
+      ChangeFeed.this.lock.lock();
+      try {
+        this.lowestPossible = ChangeFeed.this.highest + 1;
+        ChangeFeed.this.pending.add(this);
+      } finally {
+        ChangeFeed.this.lock.unlock();
+      }
+    }
+
+    ChangeFeed feed() {
+      return ChangeFeed.this;
+    }
+
+    void addAll(final List<Change> inserted) {
+      ChangeFeed.this.lock.lock();
+      try {
+        if (this.changes.isEmpty()) {
+          this.lowestPossible = inserted.get(0).position();
+        }
+        this.changes.addAll(inserted);
+        ChangeFeed.this.highest = Math.max(ChangeFeed.this.highest, inserted.get(inserted.size() - 1).position());
+      } finally {
+        ChangeFeed.this.lock.unlock();
+      }
+    }
+
+    void committed() {
+      ChangeFeed.this.lock.lock();
+      try {
+        this.changes.stream()
+            .filter(change -> change.position() > ChangeFeed.this.bufferedAfter)
+            .forEach(change -> ChangeFeed.this.buffer.put(change.position(), change));
+        while (ChangeFeed.this.buffer.size() > ChangeFeed.this.bufferSize) {
+          ChangeFeed.this.bufferedAfter = ChangeFeed.this.buffer.pollFirstEntry().getKey();
+        }
+      } finally {
+        ChangeFeed.this.lock.unlock();
+      }
+    }
+
+    void completed() {
+      ChangeFeed.this.lock.lock();
+      try {
+        ChangeFeed.this.pending.remove(this);
+        advanceVisible();
+      } finally {
+        ChangeFeed.this.lock.unlock();
+      }
+    }
+
+    @Override
+    public void afterCommit() {
+      try {
+        committed();
+      } catch (final RuntimeException e) {
+        // The write is committed regardless, so the consumers are served from the table instead
+        LOGGER.error("Failed to buffer %d committed changes".formatted(this.changes.size()), e);
+        bypassBuffer();
+      }
+    }
+
+    @Override
+    public void afterCompletion(final int status) {
+      completed();
+    }
+
+  }
+
+}
@@ -0,0 +1,17 @@
+package io.github.krloxz.fws.support;
+
+import java.util.List;
+
+/**
+ * A batch of consecutive entries read from the {@link ChangeFeed}.
+ *
+ * @param changes
+ *        the changes, sorted by position
+ * @param next
+ *        the resume token to read the changes that follow, the position of the last change or the
+ *        given token when there are no changes
+ * @author Carlos Gomez
+ */
+public record Changes(List<Change> changes, long next) {
+
+}
@@ -0,0 +1,27 @@
+package io.github.krloxz.fws.support;
+
+/**
+ * Strategies to compute the total number of items along with a page, configured per repository.
+ * <p>
+ * Either strategy avoids running a separate {@code COUNT(*)} query for every page, which costs more
+ * than the page itself on large tables.
+ *
+ * @author Carlos Gomez
+ */
+public enum CountStrategy {
+
+  /**
+   * The total is computed by the page query itself with a {@code COUNT(*) OVER ()} window function,
+   * so the matching rows are counted in the same round trip that reads the page. It works with any
+   * filter.
+   */
+  WINDOW,
+
+  /**
+   * The total is read from a counter that the repository maintains as it inserts and deletes rows,
+   * so no rows are counted at all. It only applies to unfiltered pages, filtered pages fall back to
+   * {@link #WINDOW}.
+   */
+  COUNTER
+
+}
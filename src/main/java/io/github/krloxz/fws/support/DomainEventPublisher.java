@@ -16,19 +16,24 @@ import io.github.krloxz.fws.core.DomainEventSupplier;
 public class DomainEventPublisher {
 
   private final ApplicationEventPublisher delegate;
+  private final EventChains eventChains;
 
   /**
    * Creates a new instance of {@link DomainEventPublisher}.
    *
    * @param delegate
    *        Spring's event publisher which will perform the actual event publishing
+   * @param eventChains
+   *        the event chains that the published events join
    */
-  public DomainEventPublisher(final ApplicationEventPublisher delegate) {
+  public DomainEventPublisher(final ApplicationEventPublisher delegate, final EventChains eventChains) {
     this.delegate = delegate;
+    this.eventChains = eventChains;
   }
 
   /**
-   * Publishes the domain events supplied by the given {@link DomainEventSupplier}.
+   * Publishes the domain events supplied by the given {@link DomainEventSupplier}, which join the
+   * {@link EventChains} of the current transaction or listener, if any.
    *
    * @param supplier
    *        the supplier
@@ -37,7 +42,10 @@ public class DomainEventPublisher {
    * @return the original supplier to enable method chaining
    */
   public <T extends DomainEventSupplier> T publish(final T supplier) {
-    supplier.domainEvents().forEach(this.delegate::publishEvent);
+    supplier.domainEvents().forEach(event -> {
+      this.delegate.publishEvent(event);
+      this.eventChains.track(event);
+    });
     return supplier;
   }
 
@@ -0,0 +1,338 @@
+package io.github.krloxz.fws.support;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tracks chains of domain events, so that clients can wait until every listener downstream of a
+ * request has finished, e.g. until a join has been applied to the freelancer and compensated if
+ * needed, instead of polling the affected resources.
+ * <p>
+ * A chain is started by a transaction and identified by a token that is handed to the client. The
+ * events published by that transaction, and the events published while handling them with
+ * {@link PartitionedModuleListener}s, join the chain. The chain completes once the starting
+ * transaction has completed and every listener of every event in the chain has finished, including
+ * the futures returned by the listeners. A chain fails, instead of completing, when its starting
+ * transaction rolls back or any of its listeners fails, including the futures returned by them.
+ * <p>
+ * Components that hand events over to other threads, e.g. to handle them in batches, must make the
+ * events they publish join the chains of the handled events with {@link #within(Collection, Runnable)}.
+ * Chains are kept in memory, so they only cover the listeners of this instance of the application,
+ * and chains are discarded, whether they finished or not, once older than the configured expiry.
+ *
+ * @author Carlos Gomez
+ */
+@Component
+public class EventChains {
+
+  /**
+   * Name of the response header that carries the token of the chain started by a request.
+   */
+  public static final String TOKEN_HEADER = "Consistency-Token";
+
+  /**
+   * State of a chain.
+   */
+  public enum State {
+    /**
+     * Some listeners of the chain haven't finished yet.
+     */
+    PENDING,
+    /**
+     * Every listener of the chain finished successfully.
+     */
+    COMPLETED,
+    /**
+     * Every listener of the chain finished, but the starting transaction or some listener failed.
+     */
+    FAILED
+  }
+
+  private final Duration expiry;
+  private final Map<UUID, EventChain> chains = new ConcurrentHashMap<>();
+  private final Map<Object, TrackedEvent> events = new IdentityHashMap<>();
+  private final ThreadLocal<Set<EventChain>> current = ThreadLocal.withInitial(Set::of);
+
+  EventChains(@Value("${fws.events.chains.expiry:10m}") final Duration expiry) {
+    this.expiry = expiry;
+  }
+
+  /**
+   * Starts a chain that the events published by the current transaction join.
+   *
+   * @return the token of the new chain
+   * @throws IllegalStateException
+   *         if there's no active transaction
+   */
+  public UUID start() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      throw new IllegalStateException("Event chains can only be started within a transaction");
+    }
+    final var chain = new EventChain();
+    this.chains.put(chain.token, chain);
+    this.current.set(union(this.current.get(), Set.of(chain)));
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(final int status) {
+        EventChains.this.current.remove();
+        if (status != STATUS_COMMITTED) {
+          chain.fail();
+        }
+        chain.release();
+      }
+    });
+    return chain.token;
+  }
+
+  /**
+   * Waits for the completion of a chain.
+   *
+   * @param token
+   *        the token of the chain
+   * @param timeout
+   *        the maximum time to wait
+   * @return the state of the chain once it finished or the timeout elapsed, empty if the token is
+   *         unknown, e.g. because the chain expired
+   * @throws InterruptedException
+   *         if interrupted while waiting
+   */
+  public Optional<State> await(final UUID token, final Duration timeout) throws InterruptedException {
+    final var chain = this.chains.get(token);
+    if (chain == null) {
+      return Optional.empty();
+    }
+    try {
+      chain.completed.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (final TimeoutException e) {
+      // Still pending
+    } catch (final ExecutionException e) {
+      throw new IllegalStateException("Event chains never complete exceptionally", e);
+    }
+    return Optional.of(chain.state());
+  }
+
+  /**
+   * Runs an action on behalf of the given events, so that the events it publishes join the chains
+   * of the given events.
+   *
+   * @param handledEvents
+   *        the events being handled, which must still be held by their listeners
+   * @param action
+   *        the action
+   */
+  public void within(final Collection<?> handledEvents, final Runnable action) {
+    final Set<EventChain> chainsOfEvents = new HashSet<>();
+    synchronized (this.events) {
+      handledEvents.stream()
+          .map(this.events::get)
+          .filter(tracked -> tracked != null)
+          .forEach(tracked -> chainsOfEvents.addAll(tracked.chains));
+    }
+    withinChains(chainsOfEvents, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  /**
+   * Discards the chains, and the events tracked for them, older than the configured expiry, whether
+   * they finished or not, e.g. because a listener was lost.
+   */
+  @Scheduled(
+      initialDelayString = "${fws.events.chains.expiry:10m}",
+      fixedDelayString = "${fws.events.chains.expiry:10m}")
+  public void discardExpiredChains() {
+    discardChainsStartedBefore(Instant.now().minus(this.expiry));
+  }
+
+  /**
+   * Discards the chains started before the given instant, and the events tracked for them, so that
+   * their tokens become unknown.
+   *
+   * @param instant
+   *        the instant the discarded chains were started before
+   */
+  public void discardChainsStartedBefore(final Instant instant) {
+    this.chains.values().removeIf(chain -> chain.startedAt.isBefore(instant));
+    synchronized (this.events) {
+      this.events.values().removeIf(tracked -> tracked.trackedAt.isBefore(instant));
+    }
+  }
+
+  /**
+   * Makes the given event, just published by the current transaction, join the current chains. The
+   * event is held until the transaction completes, by when its transactional listeners have been
+   * invoked and have held it too.
+   */
+  void track(final Object event) {
+    final var chainsOfEvent = this.current.get();
+    if (chainsOfEvent.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    synchronized (this.events) {
+      final var tracked = this.events.computeIfAbsent(event, key -> new TrackedEvent(chainsOfEvent));
+      tracked.holds++;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(final int status) {
+        release(event);
+      }
+    });
+  }
+
+  /**
+   * Holds the given event, if tracked, until a listener finishes handling it.
+   */
+  void hold(final Object event) {
+    synchronized (this.events) {
+      final var tracked = this.events.get(event);
+      if (tracked != null) {
+        tracked.holds++;
+      }
+    }
+  }
+
+  /**
+   * Releases the given event, the chains it joined are released along with its last hold.
+   */
+  void release(final Object event) {
+    final TrackedEvent tracked;
+    synchronized (this.events) {
+      tracked = this.events.get(event);
+      if (tracked == null || --tracked.holds > 0) {
+        return;
+      }
+      this.events.remove(event);
+    }
+    tracked.chains.forEach(EventChain::release);
+  }
+
+  /**
+   * Fails the chains the given event joined, if tracked.
+   */
+  void fail(final Object event) {
+    synchronized (this.events) {
+      final var tracked = this.events.get(event);
+      if (tracked != null) {
+        tracked.chains.forEach(EventChain::fail);
+      }
+    }
+  }
+
+  /**
+   * Handles a held event within its chains, and releases it once the handler finishes, or once the
+   * future returned by the handler completes. The chains fail if the handler or its future fails.
+   */
+  void handle(final Object event, final Supplier<?> handler) {
+    final Set<EventChain> chainsOfEvent;
+    synchronized (this.events) {
+      chainsOfEvent = this.events.containsKey(event) ? this.events.get(event).chains : Set.of();
+    }
+    final Object result;
+    try {
+      result = withinChains(chainsOfEvent, handler);
+    } catch (final RuntimeException | Error e) {
+      fail(event);
+      release(event);
+      throw e;
+    }
+    if (result instanceof final CompletionStage<?> stage) {
+      stage.whenComplete((value, failure) -> {
+        if (failure != null) {
+          fail(event);
+        }
+        release(event);
+      });
+    } else {
+      release(event);
+    }
+  }
+
+  private <T> T withinChains(final Set<EventChain> chainsOfEvents, final Supplier<T> action) {
+    final var previous = this.current.get();
+    this.current.set(union(previous, chainsOfEvents));
+    try {
+      return action.get();
+    } finally {
+      this.current.set(previous);
+    }
+  }
+
+  private static Set<EventChain> union(final Set<EventChain> chains, final Set<EventChain> others) {
+    final var union = new HashSet<>(chains);
+    union.addAll(others);
+    return Set.copyOf(union);
+  }
+
+  private final class EventChain {
+
+    private final UUID token = UUID.randomUUID();
+    private final Instant startedAt = Instant.now();
+    private final AtomicInteger holds = new AtomicInteger(1);
+    private final CompletableFuture<Void> completed = new CompletableFuture<>();
+    private volatile boolean failed;
+
+    /**
+     * Holds are taken by the starting transaction and by the events that joined the chain, which
+     * always join before the starting transaction, or the event that published them, releases its
+     * hold.
+     */
+    void hold() {
+      this.holds.incrementAndGet();
+    }
+
+    void release() {
+      if (this.holds.decrementAndGet() == 0) {
+        this.completed.complete(null);
+      }
+    }
+
+    void fail() {
+      this.failed = true;
+    }
+
+    State state() {
+      if (!this.completed.isDone()) {
+        return State.PENDING;
+      }
+      return this.failed ? State.FAILED : State.COMPLETED;
+    }
+
+  }
+
+  private static final class TrackedEvent {
+
+    private final Set<EventChain> chains;
+    private final Instant trackedAt = Instant.now();
+    private int holds;
+
+    TrackedEvent(final Set<EventChain> chains) {
+      this.chains = chains;
+      chains.forEach(EventChain::hold);
+    }
+
+  }
+
+}
@@ -0,0 +1,253 @@
+package io.github.krloxz.fws.support;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jooq.DSLContext;
+import org.jooq.Condition;
+import org.jooq.Field;
+import org.jooq.Record5;
+import org.jooq.Result;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.modulith.events.CompletedEventPublications;
+import org.springframework.modulith.events.core.EventSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalApplicationListener;
+import org.springframework.util.ClassUtils;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps Spring Modulith's event publication registry small and drains it on startup.
+ * <ul>
+ * <li>Completed publications are purged once they are older than the configured retention, so the
+ * registry doesn't grow with every event ever published.</li>
+ * <li>Incomplete publications left by previous runs, i.e. published before this instance started,
+ * are resubmitted on startup in batches of the configured size, pausing between batches so that the
+ * listeners aren't flooded. Batches are paged by publication date, so each publication is
+ * resubmitted once, even if it's still incomplete by the time the next batch is selected, and the
+ * publications of this run are left to their listeners rather than applied twice. Each batch is
+ * read from the registry's table and handed to the publications' listeners directly, since
+ * {@link org.springframework.modulith.events.IncompleteEventPublications} loads every incomplete
+ * publication to filter them in memory; the listeners still complete the publications through the
+ * registry.</li>
+ * <li>The number of pending and completed publications, and the age of the oldest pending one in
+ * seconds, are published as the {@code fws.events.publications.pending},
+ * {@code fws.events.publications.completed} and {@code fws.events.publications.oldest.pending.age}
+ * gauges.</li>
+ * </ul>
+ *
+ * @author Carlos Gomez
+ */
+@Component
+public class EventPublicationHousekeeping {
+
+  private static final Log LOGGER = LogFactory.getLog(EventPublicationHousekeeping.class);
+
+  private static final Table<?> EVENT_PUBLICATION = DSL.table(DSL.name("event_publication"));
+  private static final Field<UUID> ID = DSL.field(DSL.name("id"), UUID.class);
+  private static final Field<String> LISTENER_ID = DSL.field(DSL.name("listener_id"), String.class);
+  private static final Field<String> EVENT_TYPE = DSL.field(DSL.name("event_type"), String.class);
+  private static final Field<String> SERIALIZED_EVENT = DSL.field(DSL.name("serialized_event"), String.class);
+  private static final Field<OffsetDateTime> PUBLICATION_DATE =
+      DSL.field(DSL.name("publication_date"), OffsetDateTime.class);
+  private static final Field<OffsetDateTime> COMPLETION_DATE =
+      DSL.field(DSL.name("completion_date"), OffsetDateTime.class);
+
+  private final CompletedEventPublications completedPublications;
+  private final EventSerializer serializer;
+  private final AbstractApplicationContext context;
+  private final DSLContext create;
+  private final Duration retention;
+  private final int resubmissionBatchSize;
+  private final Duration resubmissionPause;
+  private final Instant startedAt = Instant.now();
+
+  EventPublicationHousekeeping(
+      final CompletedEventPublications completedPublications,
+      final EventSerializer serializer,
+      final AbstractApplicationContext context,
+      final DSLContext create,
+      final MeterRegistry registry,
+      @Value("${fws.events.publications.retention:7d}") final Duration retention,
+      @Value("${fws.events.publications.resubmission.batch-size:100}") final int resubmissionBatchSize,
+      @Value("${fws.events.publications.resubmission.pause:1s}") final Duration resubmissionPause) {
+    this.completedPublications = completedPublications;
+    this.serializer = serializer;
+    this.context = context;
+    this.create = create;
+    this.retention = retention;
+    this.resubmissionBatchSize = resubmissionBatchSize;
+    this.resubmissionPause = resubmissionPause;
+    Gauge.builder("fws.events.publications.pending", this, EventPublicationHousekeeping::pendingCount)
+        .description("Event publications whose listeners haven't completed yet")
+        .register(registry);
+    Gauge.builder("fws.events.publications.completed", this, EventPublicationHousekeeping::completedCount)
+        .description("Completed event publications not purged yet")
+        .register(registry);
+    Gauge.builder("fws.events.publications.oldest.pending.age", this, EventPublicationHousekeeping::oldestPendingAge)
+        .description("Age in seconds of the oldest event publication whose listener hasn't completed yet")
+        .baseUnit("seconds")
+        .register(registry);
+  }
+
+  /**
+   * Purges the completed publications older than the configured retention.
+   */
+  @Scheduled(
+      initialDelayString = "${fws.events.publications.purge-interval:1h}",
+      fixedDelayString = "${fws.events.publications.purge-interval:1h}")
+  public void purgeCompletedPublications() {
+    this.completedPublications.deletePublicationsOlderThan(this.retention);
+  }
+
+  /**
+   * Starts resubmitting the incomplete publications left by a previous run, on a virtual thread so
+   * that the startup isn't delayed.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  void resubmitIncompletePublicationsOnStartup() {
+    Thread.ofVirtual()
+        .name("event-publication-resubmission")
+        .start(() -> {
+          try {
+            final var resubmitted = resubmitIncompletePublicationsPublishedBefore(this.startedAt);
+            if (resubmitted > 0) {
+              LOGGER.info("Resubmitted %d incomplete event publications".formatted(resubmitted));
+            }
+          } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } catch (final RuntimeException e) {
+            LOGGER.error("Incomplete event publications couldn't be resubmitted", e);
+          }
+        });
+  }
+
+  /**
+   * Resubmits the incomplete publications published before the given instant, in batches of the
+   * configured size sorted by publication date, pausing between batches.
+   *
+   * @param instant
+   *        the instant the publications must be older than
+   * @return the number of publications resubmitted
+   * @throws InterruptedException
+   *         if interrupted while pausing between batches
+   */
+  public int resubmitIncompletePublicationsPublishedBefore(final Instant instant) throws InterruptedException {
+    final var listeners = transactionalListeners();
+    var resubmitted = 0;
+    var page = incompletePublicationsPublishedBefore(instant, Optional.empty());
+    while (!page.isEmpty()) {
+      for (final var publication : page) {
+        if (resubmit(publication, listeners)) {
+          resubmitted++;
+        }
+      }
+      if (page.size() < this.resubmissionBatchSize) {
+        break;
+      }
+      Thread.sleep(this.resubmissionPause);
+      page = incompletePublicationsPublishedBefore(instant, Optional.of(page.get(page.size() - 1)));
+    }
+    return resubmitted;
+  }
+
+  private Result<Record5<OffsetDateTime, UUID, String, String, String>> incompletePublicationsPublishedBefore(
+      final Instant instant, final Optional<Record5<OffsetDateTime, UUID, String, String, String>> last) {
+    return this.create.select(PUBLICATION_DATE, ID, LISTENER_ID, EVENT_TYPE, SERIALIZED_EVENT)
+        .from(EVENT_PUBLICATION)
+        .where(COMPLETION_DATE.isNull())
+        .and(PUBLICATION_DATE.lt(instant.atOffset(ZoneOffset.UTC)))
+        .and(last.map(EventPublicationHousekeeping::seek).orElse(DSL.noCondition()))
+        .orderBy(PUBLICATION_DATE, ID)
+        .limit(this.resubmissionBatchSize)
+        .fetch();
+  }
+
+  private static Condition seek(final Record5<OffsetDateTime, UUID, String, String, String> last) {
+    return DSL.row(PUBLICATION_DATE, ID).gt(last.value1(), last.value2());
+  }
+
+  /**
+   * Hands the given publication's event over to its listener, the same way Spring Modulith does
+   * when resubmitting publications, so that the listener's advice completes the publication.
+   *
+   * @return whether the publication was resubmitted
+   */
+  private boolean resubmit(
+      final Record5<OffsetDateTime, UUID, String, String, String> publication,
+      final Map<String, TransactionalApplicationListener<ApplicationEvent>> listeners) {
+    final Object event;
+    try {
+      event = this.serializer.deserialize(
+          publication.get(SERIALIZED_EVENT),
+          ClassUtils.forName(publication.get(EVENT_TYPE), this.context.getClassLoader()));
+    } catch (final ClassNotFoundException | RuntimeException e) {
+      LOGGER.error("Event publication %s couldn't be deserialized".formatted(publication.get(ID)), e);
+      return false;
+    }
+    final var listener = listeners.get(publication.get(LISTENER_ID));
+    if (listener == null) {
+      LOGGER.warn("Event publication %s has no listener %s, it remains incomplete"
+          .formatted(publication.get(ID), publication.get(LISTENER_ID)));
+      return false;
+    }
+    try {
+      listener.processEvent(new PayloadApplicationEvent<>(this, event));
+      return true;
+    } catch (final RuntimeException e) {
+      LOGGER.error("Event publication %s couldn't be resubmitted".formatted(publication.get(ID)), e);
+      return false;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, TransactionalApplicationListener<ApplicationEvent>> transactionalListeners() {
+    return this.context.getApplicationListeners()
+        .stream()
+        .filter(TransactionalApplicationListener.class::isInstance)
+        .map(listener -> (TransactionalApplicationListener<ApplicationEvent>) listener)
+        .collect(Collectors.toMap(
+            TransactionalApplicationListener::getListenerId,
+            Function.identity(),
+            (first, second) -> first));
+  }
+
+  private double pendingCount() {
+    return this.create.fetchCount(EVENT_PUBLICATION, COMPLETION_DATE.isNull());
+  }
+
+  private double completedCount() {
+    return this.create.fetchCount(EVENT_PUBLICATION, COMPLETION_DATE.isNotNull());
+  }
+
+  private double oldestPendingAge() {
+    final var oldest = this.create.select(DSL.min(PUBLICATION_DATE))
+        .from(EVENT_PUBLICATION)
+        .where(COMPLETION_DATE.isNull())
+        .fetchOne()
+        .value1();
+    return oldest == null
+        ? 0
+        : Duration.between(oldest, OffsetDateTime.now()).toMillis() / 1000d;
+  }
+
+}
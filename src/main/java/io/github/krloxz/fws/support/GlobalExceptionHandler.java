@@ -5,6 +5,8 @@ import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -63,6 +65,36 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, exception.getMessage(), exception), request);
   }
 
+  /**
+   * Wraps optimistic locking failures, raised when an aggregate was concurrently modified, into
+   * {@link ResponseStatusException}s and delegates to
+   * {@link #handleException(ResponseStatusException, WebRequest)}.
+   *
+   * @throws Exception
+   */
+  @ExceptionHandler
+  public ResponseEntity<Object> handleOptimisticLockingFailure(
+      final OptimisticLockingFailureException exception,
+      final WebRequest request) throws Exception {
+    return handleException(
+        new ResponseStatusException(HttpStatus.CONFLICT, exception.getMessage(), exception), request);
+  }
+
+  /**
+   * Wraps duplicate key failures, raised when concurrent requests insert the same row, e.g. the same
+   * freelancer joining a project twice at once, into {@link ResponseStatusException}s and delegates to
+   * {@link #handleException(ResponseStatusException, WebRequest)}.
+   *
+   * @throws Exception
+   */
+  @ExceptionHandler
+  public ResponseEntity<Object> handleDuplicateKey(final DuplicateKeyException exception, final WebRequest request)
+      throws Exception {
+    return handleException(
+        new ResponseStatusException(HttpStatus.CONFLICT, "The request conflicts with a concurrent one", exception),
+        request);
+  }
+
   @Override
   protected ResponseEntity<Object> handleErrorResponseException(
       final ErrorResponseException exception,
@@ -0,0 +1,64 @@
+package io.github.krloxz.fws.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import io.github.krloxz.fws.core.KeysetCursor;
+import io.github.krloxz.fws.core.KeysetPage;
+
+/**
+ * Creates the navigation links of a {@link KeysetPage} as {@link AffordanceLink}s.
+ * <p>
+ * Links are derived from the current request by replacing its {@value #CURSOR_PARAM} parameter, so
+ * that any other parameter, like the page size, is preserved.
+ *
+ * @author Carlos Gomez
+ */
+public abstract class KeysetLinks {
+
+  /**
+   * Name of the request parameter that carries the cursor token.
+   */
+  public static final String CURSOR_PARAM = "cursor";
+
+  private KeysetLinks() {
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * Creates the {@code self}, {@code first}, {@code prev} and {@code next} links of the given page.
+   * {@code prev} and {@code next} links are only created when the page has the corresponding cursor.
+   *
+   * @param page
+   *        the page
+   * @return the navigation links of the page
+   */
+  public static List<Link> of(final KeysetPage<?> page) {
+    final var links = new ArrayList<Link>();
+    links.add(linkTo(ServletUriComponentsBuilder.fromCurrentRequest().toUriString(), IanaLinkRelations.SELF));
+    links.add(linkTo(withCursor(""), IanaLinkRelations.FIRST));
+    page.previous().ifPresent(cursor -> links.add(linkTo(withCursor(cursor), IanaLinkRelations.PREV)));
+    page.next().ifPresent(cursor -> links.add(linkTo(withCursor(cursor), IanaLinkRelations.NEXT)));
+    return links;
+  }
+
+  private static String withCursor(final KeysetCursor cursor) {
+    return withCursor(cursor.encode());
+  }
+
+  private static String withCursor(final String token) {
+    return ServletUriComponentsBuilder.fromCurrentRequest()
+        .replaceQueryParam(CURSOR_PARAM, token)
+        .toUriString();
+  }
+
+  private static Link linkTo(final String href, final LinkRelation relation) {
+    return AffordanceLink.toAffordanceLink(Link.of(href, relation));
+  }
+
+}
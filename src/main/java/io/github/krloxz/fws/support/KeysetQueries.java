@@ -0,0 +1,64 @@
+package io.github.krloxz.fws.support;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.jooq.Condition;
+import org.jooq.Field;
+import org.jooq.SortField;
+import org.jooq.impl.DSL;
+
+import io.github.krloxz.fws.core.KeysetSpec;
+
+/**
+ * Translates a {@link KeysetSpec} into the jOOQ condition and sort fields that seek its page in a
+ * collection sorted by a key field and, to break ties, by an ID field.
+ * <p>
+ * Both fields are expected to be covered by a single index, in that order, so that the page is read
+ * from the index in either direction without sorting the table.
+ *
+ * @author Carlos Gomez
+ */
+public abstract class KeysetQueries {
+
+  private KeysetQueries() {
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * @param keysetSpec
+   *        the page specification
+   * @param keyField
+   *        the field holding the sort key
+   * @param idField
+   *        the ID field
+   * @return the condition that selects the items after or before the cursor of the given page, no
+   *         condition if the first page is requested
+   */
+  public static Condition seek(final KeysetSpec keysetSpec, final Field<String> keyField, final Field<UUID> idField) {
+    final var position = DSL.row(keyField, idField);
+    return keysetSpec.cursor()
+        .map(cursor -> cursor.isBefore()
+            ? position.lt(cursor.key(), cursor.id())
+            : position.gt(cursor.key(), cursor.id()))
+        .orElse(DSL.noCondition());
+  }
+
+  /**
+   * @param keysetSpec
+   *        the page specification
+   * @param keyField
+   *        the field holding the sort key
+   * @param idField
+   *        the ID field
+   * @return the sort fields that read the items away from the cursor of the given page, i.e.
+   *         descending if the items before the cursor are requested
+   */
+  public static List<SortField<?>> order(
+      final KeysetSpec keysetSpec, final Field<String> keyField, final Field<UUID> idField) {
+    return keysetSpec.isBackwards()
+        ? List.of(keyField.desc(), idField.desc())
+        : List.of(keyField.asc(), idField.asc());
+  }
+
+}
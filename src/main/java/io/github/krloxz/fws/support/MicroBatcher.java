@@ -0,0 +1,204 @@
+package io.github.krloxz.fws.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Gathers items into batches that are handled at once by a single virtual thread.
+ * <p>
+ * A batch is handled as soon as it reaches the maximum size, or when the window that starts with its
+ * first item closes, whatever happens first. Items are handed to the handler in the order they were
+ * submitted and batches are handled one at a time, so the handler never runs concurrently with
+ * itself. Submitters wait when a full batch is already waiting to be handled.
+ * <p>
+ * Items are grouped by a key, e.g. the aggregate they modify. When a batch fails, each of its groups
+ * is handled again on its own, in the order its first item was submitted, so a failing group doesn't
+ * fail the items of the other groups.
+ * <p>
+ * Once closed, the items that weren't handled yet, and those submitted afterwards, fail with a
+ * {@link CancellationException}.
+ *
+ * @param <T>
+ *        type of the batched items
+ * @author Carlos Gomez
+ */
+public class MicroBatcher<T> implements AutoCloseable {
+
+  private static final Log LOGGER = LogFactory.getLog(MicroBatcher.class);
+  private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(5);
+
+  private final int maxSize;
+  private final Duration window;
+  private final Function<T, ?> groupBy;
+  private final Consumer<List<T>> handler;
+  private final BlockingQueue<Item<T>> queue;
+  private final Thread worker;
+  private volatile boolean closed;
+
+  /**
+   * Creates a new batcher and starts its thread.
+   *
+   * @param name
+   *        the name of the batcher's thread
+   * @param maxSize
+   *        the maximum number of items per batch
+   * @param window
+   *        the maximum time the first item of a batch waits for others
+   * @param groupBy
+   *        the function that returns the group key of an item, the items of a group succeed or fail
+   *        together
+   * @param handler
+   *        the handler of each batch, a batch fails as a whole when it throws an exception
+   */
+  public MicroBatcher(
+      final String name,
+      final int maxSize,
+      final Duration window,
+      final Function<T, ?> groupBy,
+      final Consumer<List<T>> handler) {
+    this.maxSize = maxSize;
+    this.window = window;
+    this.groupBy = groupBy;
+    this.handler = handler;
+    this.queue = new ArrayBlockingQueue<>(maxSize);
+    this.worker = Thread.ofVirtual()
+        .name(name)
+        .start(this::handleBatches);
+  }
+
+  /**
+   * Adds an item to the next batch.
+   *
+   * @param item
+   *        the item
+   * @return a future completed once the item's batch is handled, or completed exceptionally if the
+   *         batch failed
+   */
+  public CompletableFuture<Void> submit(final T item) {
+    final var handled = new CompletableFuture<Void>();
+    if (this.closed) {
+      handled.completeExceptionally(new CancellationException("The batcher is closed"));
+      return handled;
+    }
+    try {
+      this.queue.put(new Item<>(item, handled));
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      handled.completeExceptionally(e);
+    }
+    if (this.closed) {
+      cancelQueued();
+    }
+    return handled;
+  }
+
+  /**
+   * Stops the batcher once the batch being handled, if any, is done, and fails the items that
+   * weren't handled yet.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    this.worker.interrupt();
+    try {
+      this.worker.join(SHUTDOWN_TIMEOUT);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    cancelQueued();
+  }
+
+  private void cancelQueued() {
+    final var queued = new ArrayList<Item<T>>();
+    this.queue.drainTo(queued);
+    cancel(queued);
+  }
+
+  private static <T> void cancel(final List<Item<T>> items) {
+    items.forEach(item -> item.handled().completeExceptionally(new CancellationException("The batcher is closed")));
+  }
+
+  private void handleBatches() {
+    while (!Thread.currentThread().isInterrupted()) {
+      final List<Item<T>> batch;
+      try {
+        batch = nextBatch();
+      } catch (final InterruptedException e) {
+        return;
+      }
+      try {
+        handle(batch);
+      } catch (final RuntimeException e) {
+        final var groups = groups(batch);
+        if (groups.size() == 1) {
+          fail(batch, e);
+        } else {
+          LOGGER.warn("A batch of %d items failed, handling its %d groups one at a time"
+              .formatted(batch.size(), groups.size()), e);
+          groups.forEach(this::handleGroup);
+        }
+      }
+    }
+  }
+
+  private void handle(final List<Item<T>> items) {
+    this.handler.accept(items.stream().map(Item::value).toList());
+    items.forEach(item -> item.handled().complete(null));
+  }
+
+  private void handleGroup(final List<Item<T>> group) {
+    try {
+      handle(group);
+    } catch (final RuntimeException e) {
+      fail(group, e);
+    }
+  }
+
+  private static <T> void fail(final List<Item<T>> items, final RuntimeException e) {
+    LOGGER.error("A batch of %d items failed".formatted(items.size()), e);
+    items.forEach(item -> item.handled().completeExceptionally(e));
+  }
+
+  private Collection<List<Item<T>>> groups(final List<Item<T>> batch) {
+    final var groups = new LinkedHashMap<Object, List<Item<T>>>();
+    batch.forEach(item -> groups.computeIfAbsent(this.groupBy.apply(item.value()), key -> new ArrayList<>())
+        .add(item));
+    return groups.values();
+  }
+
+  private List<Item<T>> nextBatch() throws InterruptedException {
+    final var batch = new ArrayList<Item<T>>(this.maxSize);
+    batch.add(this.queue.take());
+    final var deadline = System.nanoTime() + this.window.toNanos();
+    try {
+      while (batch.size() < this.maxSize) {
+        final var item = this.queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        if (item == null) {
+          break;
+        }
+        batch.add(item);
+      }
+    } catch (final InterruptedException e) {
+      cancel(batch);
+      throw e;
+    }
+    return batch;
+  }
+
+  private static record Item<T>(T value, CompletableFuture<Void> handled) {
+  }
+
+}
@@ -0,0 +1,104 @@
+package io.github.krloxz.fws.support;
+
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.github.krloxz.fws.core.KeysetCursor;
+import io.github.krloxz.fws.core.KeysetSpec;
+import io.github.krloxz.fws.core.OffsetPage;
+import io.github.krloxz.fws.core.PageSpec;
+import io.github.krloxz.fws.core.SortOrder;
+
+/**
+ * Translates page requests into {@link PageSpec}s or {@link KeysetSpec}s, and the pages found with
+ * offset specifications back into Spring Data {@link Slice}s.
+ * <p>
+ * Only sorts backed by an index are accepted, so that a page never requires sorting a whole table:
+ * a single property out of the sortable ones.
+ *
+ * @author Carlos Gomez
+ */
+public abstract class PageSpecs {
+
+  private PageSpecs() {
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * @param pageable
+   *        a page request
+   * @param sortableProperties
+   *        the properties that the items can be sorted by
+   * @param withTotal
+   *        whether the total number of items was requested
+   * @return the specification of the requested page
+   * @throws ResponseStatusException
+   *         400 - if the requested sort is not supported
+   */
+  public static PageSpec of(
+      final Pageable pageable,
+      final Set<String> sortableProperties,
+      final boolean withTotal) {
+    final var sort = pageable.getSort()
+        .stream()
+        .map(order -> new SortOrder(order.getProperty(), order.isDescending()))
+        .toList();
+    if (sort.size() > 1) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Sorting by more than one property is not supported");
+    }
+    sort.stream()
+        .map(SortOrder::property)
+        .filter(property -> !sortableProperties.contains(property))
+        .findAny()
+        .ifPresent(property -> {
+          throw new ResponseStatusException(
+              HttpStatus.BAD_REQUEST,
+              "Sorting by '%s' is not supported, use one of %s".formatted(property, sortableProperties));
+        });
+    return new PageSpec(pageable.getPageNumber(), pageable.getPageSize(), sort, withTotal);
+  }
+
+  /**
+   * @param cursor
+   *        the cursor token of the requested page, blank to request the first page
+   * @param pageable
+   *        a page request, only its size is used
+   * @return the specification of the requested page
+   * @throws ResponseStatusException
+   *         400 - if the cursor is not valid
+   */
+  public static KeysetSpec keysetOf(final String cursor, final Pageable pageable) {
+    try {
+      final var keysetCursor = cursor.isBlank()
+          ? Optional.<KeysetCursor>empty()
+          : Optional.of(KeysetCursor.decode(cursor));
+      return new KeysetSpec(keysetCursor, pageable.getPageSize());
+    } catch (final IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor, e);
+    }
+  }
+
+  /**
+   * @param <T>
+   *        type of the items
+   * @param page
+   *        a page found with the specification of the given request
+   * @param pageable
+   *        the page request
+   * @return a {@link Page} if the total number of items is known, a {@link Slice} otherwise
+   */
+  public static <T> Slice<T> toSlice(final OffsetPage<T> page, final Pageable pageable) {
+    return page.total()
+        .<Slice<T>>map(total -> new PageImpl<>(page.content(), pageable, total))
+        .orElseGet(() -> new SliceImpl<>(page.content(), pageable, page.hasNext()));
+  }
+
+}
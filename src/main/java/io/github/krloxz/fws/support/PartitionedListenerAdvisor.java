@@ -0,0 +1,107 @@
+package io.github.krloxz.fws.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.aop.Advice;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.AbstractPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+
+/**
+ * Advisor that hands the invocations of {@link PartitionedModuleListener}s over to the
+ * {@link PartitionedListenerExecutor}.
+ * <p>
+ * It's ordered first, so the invocation continues on the partition's thread through the advice that
+ * completes the event publication and the one that starts the listener's transaction. The event is
+ * held in its {@link EventChains} from the moment it's queued until the listener, or the future it
+ * returns, completes.
+ *
+ * @author Carlos Gomez
+ */
+@Component
+@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+class PartitionedListenerAdvisor extends AbstractPointcutAdvisor {
+
+  private static final long serialVersionUID = 1L;
+
+  private final transient Pointcut pointcut = AnnotationMatchingPointcut.forMethodAnnotation(
+      PartitionedModuleListener.class);
+  private final transient Advice advice;
+
+  /**
+   * The executor and the event chains are looked up on the first invocation, since advisors are
+   * created before most beans, e.g. the meter registry the executor depends on.
+   */
+  PartitionedListenerAdvisor(
+      final ObjectProvider<PartitionedListenerExecutor> executor,
+      final ObjectProvider<EventChains> eventChains) {
+    this.advice = new PartitioningInterceptor(executor, eventChains);
+    setOrder(Ordered.HIGHEST_PRECEDENCE);
+  }
+
+  @Override
+  public Pointcut getPointcut() {
+    return this.pointcut;
+  }
+
+  @Override
+  public Advice getAdvice() {
+    return this.advice;
+  }
+
+  private static class PartitioningInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<PartitionedListenerExecutor> executor;
+    private final ObjectProvider<EventChains> eventChains;
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final Map<String, Expression> partitionKeys = new ConcurrentHashMap<>();
+
+    PartitioningInterceptor(
+        final ObjectProvider<PartitionedListenerExecutor> executor,
+        final ObjectProvider<EventChains> eventChains) {
+      this.executor = executor;
+      this.eventChains = eventChains;
+    }
+
+    @Override
+    public Object invoke(final MethodInvocation invocation) {
+      final var listener = AnnotatedElementUtils.findMergedAnnotation(
+          invocation.getMethod(), PartitionedModuleListener.class);
+      final var event = invocation.getArguments()[0];
+      final var key = this.partitionKeys.computeIfAbsent(listener.partitionBy(), this.parser::parseExpression)
+          .getValue(event);
+      final var chains = this.eventChains.getObject();
+      chains.hold(event);
+      try {
+        this.executor.getObject().execute(key, () -> chains.handle(event, () -> proceed(invocation)));
+      } catch (final RuntimeException e) {
+        chains.release(event);
+        throw e;
+      }
+      return null;
+    }
+
+    private static Object proceed(final MethodInvocation invocation) {
+      try {
+        return invocation.proceed();
+      } catch (final RuntimeException | Error e) {
+        throw e;
+      } catch (final Throwable e) {
+        throw new IllegalStateException("Event listener failed: " + invocation.getMethod(), e);
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,132 @@
+package io.github.krloxz.fws.support;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Executes the {@link PartitionedModuleListener}s on a fixed number of partitions, each one with a
+ * bounded queue drained by a virtual thread of its own.
+ * <p>
+ * Tasks with the same key always land on the same partition, so they run one at a time in the order
+ * they were submitted. When a partition's queue is full, the submitter waits up to the configured
+ * timeout for room and the task is rejected afterwards, which leaves the event publication
+ * incomplete rather than growing the queue without bounds.
+ * <p>
+ * The depth of each queue is published as the {@code fws.events.listener.queue.depth} gauge, the
+ * time tasks wait before running as the {@code fws.events.listener.lag} timer and the rejected tasks
+ * as the {@code fws.events.listener.rejected} counter.
+ *
+ * @author Carlos Gomez
+ */
+@Component
+public class PartitionedListenerExecutor implements DisposableBean {
+
+  private static final Log LOGGER = LogFactory.getLog(PartitionedListenerExecutor.class);
+  private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(5);
+
+  private final List<BlockingQueue<Task>> queues;
+  private final List<Thread> workers;
+  private final Duration offerTimeout;
+  private final Timer lag;
+  private final Counter rejected;
+
+  PartitionedListenerExecutor(
+      @Value("${fws.events.listener.partitions:16}") final int partitions,
+      @Value("${fws.events.listener.queue-capacity:1000}") final int queueCapacity,
+      @Value("${fws.events.listener.offer-timeout:1s}") final Duration offerTimeout,
+      final MeterRegistry registry) {
+    this.offerTimeout = offerTimeout;
+    this.queues = IntStream.range(0, partitions)
+        .<BlockingQueue<Task>>mapToObj(partition -> new ArrayBlockingQueue<>(queueCapacity))
+        .toList();
+    this.lag = Timer.builder("fws.events.listener.lag")
+        .description("Time events wait in their partition's queue before being handled")
+        .register(registry);
+    this.rejected = Counter.builder("fws.events.listener.rejected")
+        .description("Events rejected because their partition's queue was full")
+        .register(registry);
+    IntStream.range(0, partitions).forEach(partition -> Gauge
+        .builder("fws.events.listener.queue.depth", this.queues.get(partition), BlockingQueue::size)
+        .description("Events waiting in the partition's queue")
+        .tag("partition", String.valueOf(partition))
+        .register(registry));
+    this.workers = IntStream.range(0, partitions)
+        .mapToObj(partition -> Thread.ofVirtual()
+            .name("partitioned-listener-" + partition)
+            .start(() -> drain(this.queues.get(partition))))
+        .toList();
+  }
+
+  /**
+   * Queues the given task on the partition of the given key, waiting for room when it's full.
+   *
+   * @param key
+   *        the partition key, tasks with equal keys run in the order they are submitted
+   * @param task
+   *        the task to run
+   * @throws TaskRejectedException
+   *         if the partition is still full after the configured timeout
+   */
+  public void execute(final Object key, final Runnable task) {
+    final var queue = this.queues.get(Math.floorMod(Objects.hashCode(key), this.queues.size()));
+    try {
+      if (!queue.offer(new Task(task, System.nanoTime()), this.offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+        this.rejected.increment();
+        throw new TaskRejectedException("The partition of key %s is full".formatted(key));
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TaskRejectedException("Interrupted while waiting for the partition of key %s".formatted(key), e);
+    }
+  }
+
+  /**
+   * Stops the workers, tasks still queued are discarded and their event publications remain
+   * incomplete.
+   */
+  @Override
+  public void destroy() throws InterruptedException {
+    this.workers.forEach(Thread::interrupt);
+    for (final var worker : this.workers) {
+      worker.join(SHUTDOWN_TIMEOUT);
+    }
+  }
+
+  private void drain(final BlockingQueue<Task> queue) {
+    while (!Thread.currentThread().isInterrupted()) {
+      final Task task;
+      try {
+        task = queue.take();
+      } catch (final InterruptedException e) {
+        return;
+      }
+      this.lag.record(System.nanoTime() - task.queuedAt(), TimeUnit.NANOSECONDS);
+      try {
+        task.runnable().run();
+      } catch (final RuntimeException e) {
+        LOGGER.error("An event listener failed, its event publication remains incomplete", e);
+      }
+    }
+  }
+
+  private static record Task(Runnable runnable, long queuedAt) {
+  }
+
+}
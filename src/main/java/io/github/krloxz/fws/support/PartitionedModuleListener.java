@@ -0,0 +1,42 @@
+package io.github.krloxz.fws.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.modulith.events.ApplicationModuleListener;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Alternative to {@link ApplicationModuleListener} that handles the events on the
+ * {@link PartitionedListenerExecutor} instead of Spring's default async executor.
+ * <p>
+ * Events are assigned to a partition by the key returned by {@link #partitionBy()}, usually the
+ * identifier of the aggregate the listener modifies, so events about the same aggregate are handled
+ * one at a time in the order they were published, while events about different aggregates are
+ * handled in parallel. As with {@link ApplicationModuleListener}, the events are handled after the
+ * publishing transaction commits, in a transaction of their own, and their publications are only
+ * completed once handled successfully. Listeners that hand the events over to another stage may
+ * return a {@link java.util.concurrent.CompletableFuture}, the publication is then completed along
+ * with the future.
+ *
+ * @author Carlos Gomez
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+@TransactionalEventListener
+public @interface PartitionedModuleListener {
+
+  /**
+   * @return a SpEL expression evaluated against the event that returns its partition key, e.g.
+   *         {@code "freelancerId()"}
+   */
+  String partitionBy();
+
+}
@@ -0,0 +1,101 @@
+package io.github.krloxz.fws.support;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Query;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.TableRecord;
+
+/**
+ * Compares jOOQ records to find out which values changed between two states of the same row, and
+ * builds the statements that write only those values.
+ *
+ * @author Carlos Gomez
+ */
+public abstract class RecordChanges {
+
+  private RecordChanges() {
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * Finds the values of the updated record that differ from the stored one.
+   *
+   * @param stored
+   *        the record with the stored state of the row
+   * @param updated
+   *        the record with the updated state of the row
+   * @return the changed fields mapped to their updated values, ready to be used in
+   *         {@link org.jooq.UpdateSetStep#set(Map)}; empty if nothing changed
+   */
+  public static Map<Field<?>, Object> changedValues(final Record stored, final Record updated) {
+    final var changes = new HashMap<Field<?>, Object>();
+    for (final var field : updated.fields()) {
+      final var value = updated.get(field);
+      if (!isEqual(stored.get(field), value)) {
+        changes.put(field, value);
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Builds the update that writes the values of the updated record that differ from the stored one.
+   *
+   * @param <R>
+   *        type of the records
+   * @param create
+   *        the context used to build the update
+   * @param table
+   *        the table of the row
+   * @param stored
+   *        the record with the stored state of the row
+   * @param updated
+   *        the record with the updated state of the row
+   * @param condition
+   *        the condition that identifies the row
+   * @return the update, or empty if nothing changed
+   */
+  public static <R extends Record> Optional<Query> updateChanges(
+      final DSLContext create, final Table<R> table, final R stored, final R updated, final Condition condition) {
+    final var changes = changedValues(stored, updated);
+    if (changes.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        create.update(table)
+            .set(changes)
+            .where(condition));
+  }
+
+  /**
+   * Inserts the given records as a single JDBC batch, so that child rows don't cost a round trip each.
+   *
+   * @param create
+   *        the context used to insert the records
+   * @param records
+   *        the records to insert
+   */
+  public static void insertAll(final DSLContext create, final List<? extends TableRecord<?>> records) {
+    if (!records.isEmpty()) {
+      create.batchInsert(records).execute();
+    }
+  }
+
+  private static boolean isEqual(final Object stored, final Object updated) {
+    if (stored instanceof final BigDecimal storedNumber && updated instanceof final BigDecimal updatedNumber) {
+      return storedNumber.compareTo(updatedNumber) == 0;
+    }
+    return Objects.equals(stored, updated);
+  }
+
+}
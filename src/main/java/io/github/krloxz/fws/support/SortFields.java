@@ -0,0 +1,57 @@
+package io.github.krloxz.fws.support;
+
+import java.util.List;
+import java.util.Map;
+
+import org.jooq.Field;
+import org.jooq.SortField;
+import org.jooq.SortOrder;
+
+import io.github.krloxz.fws.core.PageSpec;
+
+/**
+ * Translates the sort orders of a {@link PageSpec} into jOOQ sort fields.
+ *
+ * @author Carlos Gomez
+ */
+public abstract class SortFields {
+
+  private SortFields() {
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * Returns the sort fields of the given page, which always end with the ID field in the same
+   * direction as the requested order, so that the order is stable and an index on the sorted and ID
+   * fields can be scanned in either direction.
+   *
+   * @param pageSpec
+   *        the page specification
+   * @param sortableFields
+   *        the fields that can be sorted by, indexed by the name of the property they hold
+   * @param defaultField
+   *        the field to sort by when no order is requested
+   * @param idField
+   *        the ID field
+   * @return the sort fields
+   * @throws IllegalArgumentException
+   *         if a requested property can't be sorted by
+   */
+  public static List<SortField<?>> of(
+      final PageSpec pageSpec,
+      final Map<String, Field<?>> sortableFields,
+      final Field<?> defaultField,
+      final Field<?> idField) {
+    if (pageSpec.sort().isEmpty()) {
+      return List.of(defaultField.asc(), idField.asc());
+    }
+    final var order = pageSpec.sort().get(0);
+    final var field = sortableFields.get(order.property());
+    if (field == null || pageSpec.sort().size() > 1) {
+      throw new IllegalArgumentException("Unsupported sort: " + pageSpec.sort());
+    }
+    final var direction = order.descending() ? SortOrder.DESC : SortOrder.ASC;
+    return List.of(field.sort(direction), idField.sort(direction));
+  }
+
+}
@@ -0,0 +1,79 @@
+package io.github.krloxz.fws.support;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Exposes the versions of aggregates as entity tags and evaluates the conditional headers of the
+ * current request against them.
+ * <p>
+ * {@code If-None-Match} on safe requests is better handled with
+ * {@link org.springframework.web.context.request.WebRequest#checkNotModified(String)} along with
+ * {@link #of(long)}, which also produces the {@code 304 Not Modified} response.
+ *
+ * @author Carlos Gomez
+ */
+public abstract class VersionTags {
+
+  private VersionTags() {
+    throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+  }
+
+  /**
+   * @param version
+   *        an aggregate version
+   * @return the strong entity tag of the given version
+   */
+  public static String of(final long version) {
+    return "\"" + version + "\"";
+  }
+
+  /**
+   * Sets the entity tag of the given version in the current response.
+   *
+   * @param version
+   *        the version of the aggregate returned in the response
+   */
+  public static void tag(final long version) {
+    currentRequest()
+        .map(ServletRequestAttributes::getResponse)
+        .ifPresent(response -> response.setHeader(HttpHeaders.ETAG, of(version)));
+  }
+
+  /**
+   * Ensures the {@code If-Match} header of the current request, if any, matches the given version.
+   *
+   * @param version
+   *        the current version of the aggregate targeted by the request
+   * @throws ResponseStatusException
+   *         412 - if the {@code If-Match} header doesn't match the given version
+   */
+  public static void checkIfMatch(final long version) {
+    currentRequest()
+        .map(attributes -> attributes.getRequest().getHeader(HttpHeaders.IF_MATCH))
+        .filter(ifMatch -> !matches(ifMatch, of(version)))
+        .ifPresent(ifMatch -> {
+          throw new ResponseStatusException(
+              HttpStatus.PRECONDITION_FAILED, "The resource has changed, its current version is " + of(version));
+        });
+  }
+
+  private static boolean matches(final String ifMatch, final String eTag) {
+    return Arrays.stream(ifMatch.split(","))
+        .map(String::trim)
+        .anyMatch(tag -> "*".equals(tag) || eTag.equals(tag));
+  }
+
+  private static Optional<ServletRequestAttributes> currentRequest() {
+    return Optional.ofNullable(RequestContextHolder.getRequestAttributes())
+        .filter(ServletRequestAttributes.class::isInstance)
+        .map(ServletRequestAttributes.class::cast);
+  }
+
+}
@@ -0,0 +1,5 @@
+-- TEXT columns can't be indexed, VARCHAR has no length limit other than the database's maximum
+ALTER TABLE freelancer.freelancers ALTER COLUMN last_name SET DATA TYPE VARCHAR;
+
+CREATE INDEX IF NOT EXISTS freelancer_last_name_idx
+  ON freelancer.freelancers(last_name, id);
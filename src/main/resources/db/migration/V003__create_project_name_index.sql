@@ -0,0 +1,5 @@
+-- TEXT columns can't be indexed, VARCHAR has no length limit other than the database's maximum
+ALTER TABLE project.projects ALTER COLUMN name SET DATA TYPE VARCHAR;
+
+CREATE INDEX IF NOT EXISTS project_name_idx
+  ON project.projects(name, id);
@@ -0,0 +1,14 @@
+-- Maintained total of the hours allocated to each project, so that the allocation limit can be
+-- enforced atomically with a guarded UPDATE instead of a read-check-write cycle
+ALTER TABLE project.projects ADD COLUMN IF NOT EXISTS allocated_hours INT DEFAULT 0 NOT NULL;
+
+UPDATE project.projects p
+  SET allocated_hours = (
+    SELECT COALESCE(SUM(f.allocated_hours), 0)
+      FROM project.freelancers f
+      WHERE f.project_id = p.id
+  );
+
+ALTER TABLE project.projects
+  ADD CONSTRAINT project_allocation_chk
+    CHECK (allocated_hours BETWEEN 0 AND required_hours);
@@ -0,0 +1,2 @@
+-- Increased with every update of a project, allows to tell apart stale copies of a project
+ALTER TABLE project.projects ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,2 @@
+-- Increased with every update of a freelancer, enables optimistic concurrency control
+ALTER TABLE freelancer.freelancers ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,28 @@
+-- TEXT columns can't be indexed, VARCHAR has no length limit other than the database's maximum
+ALTER TABLE freelancer.addresses ALTER COLUMN city SET DATA TYPE VARCHAR;
+ALTER TABLE freelancer.addresses ALTER COLUMN state SET DATA TYPE VARCHAR;
+ALTER TABLE freelancer.addresses ALTER COLUMN country SET DATA TYPE VARCHAR;
+ALTER TABLE freelancer.freelancers ALTER COLUMN gender SET DATA TYPE VARCHAR;
+ALTER TABLE freelancer.freelancers ALTER COLUMN hourly_wage_currency SET DATA TYPE VARCHAR;
+
+-- Serves filters on the country, the country and state, or the full location, and returns the
+-- freelancer IDs without reading the table
+CREATE INDEX IF NOT EXISTS address_location_idx
+  ON freelancer.addresses(country, state, city, freelancer_id);
+
+-- Serves filters on the city alone, which can't use the location index
+CREATE INDEX IF NOT EXISTS address_city_idx
+  ON freelancer.addresses(city, freelancer_id);
+
+-- Wage amounts are only comparable within a currency, so the currency leads the range
+CREATE INDEX IF NOT EXISTS freelancer_wage_idx
+  ON freelancer.freelancers(hourly_wage_currency, hourly_wage_amount);
+
+CREATE INDEX IF NOT EXISTS freelancer_availability_idx
+  ON freelancer.freelancers(weekly_availability);
+
+CREATE INDEX IF NOT EXISTS freelancer_gender_birth_date_idx
+  ON freelancer.freelancers(gender, birth_date);
+
+CREATE INDEX IF NOT EXISTS freelancer_birth_date_idx
+  ON freelancer.freelancers(birth_date);
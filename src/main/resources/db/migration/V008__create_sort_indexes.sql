@@ -0,0 +1,14 @@
+-- Pages are sorted by a single property followed by the ID, so each index can return a page in
+-- either direction without sorting the table, the freelancer last name and project name indexes come
+-- with the keyset pages
+
+CREATE INDEX IF NOT EXISTS freelancer_wage_amount_idx
+  ON freelancer.freelancers(hourly_wage_amount, id);
+
+-- Supersedes the single column index, which still serves the availability filter
+DROP INDEX IF EXISTS freelancer.freelancer_availability_idx;
+CREATE INDEX IF NOT EXISTS freelancer_availability_idx
+  ON freelancer.freelancers(weekly_availability, id);
+
+CREATE INDEX IF NOT EXISTS project_required_hours_idx
+  ON project.projects(required_hours, id);
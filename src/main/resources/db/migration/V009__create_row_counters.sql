@@ -0,0 +1,17 @@
+-- Single row counters maintained along with the inserts and deletes of the repositories, so that
+-- unfiltered pages can report their total without counting the rows of the table.
+-- Every insert updates the same row, which serializes concurrent inserts until they commit.
+
+CREATE TABLE IF NOT EXISTS freelancer.freelancers_count (
+  row_count BIGINT NOT NULL
+);
+
+INSERT INTO freelancer.freelancers_count (row_count)
+  SELECT COUNT(*) FROM freelancer.freelancers;
+
+CREATE TABLE IF NOT EXISTS project.projects_count (
+  row_count BIGINT NOT NULL
+);
+
+INSERT INTO project.projects_count (row_count)
+  SELECT COUNT(*) FROM project.projects;
@@ -0,0 +1,9 @@
+-- Child rows are always read, updated and deleted through their freelancer, some databases back
+-- foreign keys with an index of their own but others don't, so they're indexed explicitly
+
+-- A freelancer has a single address, so the index also guards the one to one relationship
+CREATE UNIQUE INDEX IF NOT EXISTS address_freelancer_fk_idx
+  ON freelancer.addresses(freelancer_id);
+
+CREATE INDEX IF NOT EXISTS communication_channel_freelancer_fk_idx
+  ON freelancer.communication_channels(freelancer_id);
@@ -0,0 +1,22 @@
+-- Event publication registry of Spring Modulith, created here rather than by Modulith's own schema
+-- initialization so that its indexes are versioned along with the rest of the schema. Modulith
+-- reads it from the default schema.
+
+CREATE TABLE IF NOT EXISTS public.event_publication (
+  id UUID NOT NULL,
+  listener_id VARCHAR(512) NOT NULL,
+  event_type VARCHAR(512) NOT NULL,
+  serialized_event VARCHAR(4000) NOT NULL,
+  publication_date TIMESTAMP(9) WITH TIME ZONE NOT NULL,
+  completion_date TIMESTAMP(9) WITH TIME ZONE,
+  PRIMARY KEY (id)
+);
+
+-- Publications are completed by listener and event
+CREATE INDEX IF NOT EXISTS event_publication_listener_event_idx
+  ON public.event_publication(listener_id, serialized_event);
+
+-- Incomplete publications are looked up by a null completion date sorted by publication date, and
+-- completed ones are purged by completion date
+CREATE INDEX IF NOT EXISTS event_publication_completion_idx
+  ON public.event_publication(completion_date, publication_date);
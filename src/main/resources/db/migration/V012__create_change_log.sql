@@ -0,0 +1,13 @@
+-- Change log behind the change feed, which serves the consumers that fell behind the feed's
+-- in-memory buffer. Positions are assigned by the identity column, so they grow monotonically.
+
+CREATE SCHEMA IF NOT EXISTS feed;
+
+CREATE TABLE IF NOT EXISTS feed.changes (
+  position_ BIGINT GENERATED BY DEFAULT AS IDENTITY,
+  resource VARCHAR(64) NOT NULL,
+  resource_id UUID NOT NULL,
+  type VARCHAR(16) NOT NULL,
+  changed_at TIMESTAMP(9) WITH TIME ZONE NOT NULL,
+  PRIMARY KEY (position_)
+);
@@ -0,0 +1,129 @@
+package io.github.krloxz.fws;
+
+import static io.github.krloxz.fws.test.gherkin.TestScenario.given;
+import static io.github.krloxz.fws.test.gherkin.actions.Actions.result;
+import static io.github.krloxz.fws.test.gherkin.actions.Actions.systemReady;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.github.krloxz.fws.support.AggregateCache;
+import io.github.krloxz.fws.support.AggregateCaches;
+import io.github.krloxz.fws.test.FwsApplicationTest;
+import io.github.krloxz.fws.test.gherkin.actions.JooqAction;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests that aggregate caches only ever hold committed state and publish their metrics.
+ *
+ * @author Carlos Gomez
+ */
+@FwsApplicationTest
+class AggregateCacheTest {
+
+  private static final String ID = "aggregate";
+
+  private final MeterRegistry meters = new SimpleMeterRegistry();
+  private final AggregateCache<String, String> cache = new AggregateCaches(this.meters).create("aggregates", 10);
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  @Test
+  void leaveNoEntryWrittenByARolledBackTransaction() {
+    given(systemReady())
+        .when(aggregateWrittenAndReadByARolledBackTransaction())
+        .then(result())
+        .contains(jsonPath("readInTransaction").value("uncommitted"))
+        .contains(jsonPath("readAfterRollback").value("committed"));
+  }
+
+  @Test
+  void notCacheAggregatesLoadedWhileBeingWritten() {
+    given(systemReady())
+        .when(aggregateLoadedWhileBeingWritten())
+        .then(result())
+        .contains(jsonPath("loadedWhileWritten").value("stale"))
+        .contains(jsonPath("readAfterwards").value("fresh"));
+  }
+
+  @Test
+  void publishHitsAndMisses() {
+    given(systemReady())
+        .when(aggregateReadTwice())
+        .then(result())
+        .contains(jsonPath("hits").value(1.0))
+        .contains(jsonPath("misses").value(1.0));
+  }
+
+  @Test
+  void publishFreelancersCacheMetrics() {
+    given(systemReady())
+        .when(freelancersCacheMeters())
+        .then(result())
+        .contains(jsonPath("gets").value(2))
+        .contains(jsonPath("size").value(1));
+  }
+
+  private JooqAction<Map<String, String>> aggregateWrittenAndReadByARolledBackTransaction() {
+    return create -> {
+      final var read = new HashMap<String, String>();
+      new TransactionTemplate(this.transactionManager).executeWithoutResult(status -> {
+        this.cache.evict(ID);
+        read.put("readInTransaction", this.cache.get(ID, id -> Optional.of("uncommitted")).orElseThrow());
+        status.setRollbackOnly();
+      });
+      read.put("readAfterRollback", this.cache.get(ID, id -> Optional.of("committed")).orElseThrow());
+      return read;
+    };
+  }
+
+  /**
+   * Loads an aggregate that another thread writes while it's being loaded, and then reads it again.
+   */
+  private JooqAction<Map<String, String>> aggregateLoadedWhileBeingWritten() {
+    return create -> {
+      final var loaded = this.cache.get(ID, id -> {
+        CompletableFuture.runAsync(() -> this.cache.evict(ID)).join();
+        return Optional.of("stale");
+      });
+      return Map.of(
+          "loadedWhileWritten", loaded.orElseThrow(),
+          "readAfterwards", this.cache.get(ID, id -> Optional.of("fresh")).orElseThrow());
+    };
+  }
+
+  private JooqAction<Map<String, Double>> aggregateReadTwice() {
+    return create -> {
+      this.cache.get(ID, id -> Optional.of("loaded"));
+      this.cache.get(ID, id -> Optional.of("loaded"));
+      return Map.of("hits", gets("hit"), "misses", gets("miss"));
+    };
+  }
+
+  private double gets(final String result) {
+    return this.meters.get("cache.gets")
+        .tags("cache", "aggregates", "result", result)
+        .functionCounter()
+        .count();
+  }
+
+  private JooqAction<Map<String, Integer>> freelancersCacheMeters() {
+    return create -> Map.of(
+        "gets", this.registry.get("cache.gets").tag("cache", "freelancers").functionCounters().size(),
+        "size", this.registry.get("cache.size").tag("cache", "freelancers").gauges().size());
+  }
+
+}
@@ -0,0 +1,86 @@
+package io.github.krloxz.fws;
+
+import static io.github.krloxz.fws.test.gherkin.TestScenario.given;
+import static io.github.krloxz.fws.test.gherkin.actions.Actions.result;
+import static io.github.krloxz.fws.test.gherkin.actions.Actions.systemReady;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.github.krloxz.fws.support.AggregateSnapshots;
+import io.github.krloxz.fws.test.FwsApplicationTest;
+import io.github.krloxz.fws.test.gherkin.actions.JooqAction;
+
+/**
+ * Tests that aggregate snapshots are kept apart per transaction.
+ *
+ * @author Carlos Gomez
+ */
+@FwsApplicationTest
+class AggregateSnapshotsTest {
+
+  private static final String ID = "aggregate";
+  private static final String NONE = "none";
+
+  private final AggregateSnapshots<String, String> snapshots = new AggregateSnapshots<>();
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  void keepSnapshotsOfNewTransactionsApartFromTheSuspendedOnes() {
+    given(systemReady())
+        .when(snapshotsRecordedByOuterAndInnerTransactions())
+        .then(result())
+        .contains(jsonPath("seenByInner").value(NONE))
+        .contains(jsonPath("seenByOuter").value("outer"));
+  }
+
+  @Test
+  void discardSnapshotsWhenTheTransactionCompletes() {
+    given(systemReady())
+        .when(snapshotsRecordedBySuccessiveTransactions())
+        .then(result())
+        .contains(jsonPath("seenBySecond").value(NONE));
+  }
+
+  private JooqAction<Map<String, String>> snapshotsRecordedByOuterAndInnerTransactions() {
+    return create -> {
+      final var seen = new HashMap<String, String>();
+      inTransaction(TransactionDefinition.PROPAGATION_REQUIRED, () -> {
+        this.snapshots.put(ID, "outer");
+        inTransaction(TransactionDefinition.PROPAGATION_REQUIRES_NEW, () -> {
+          seen.put("seenByInner", this.snapshots.get(ID).orElse(NONE));
+          this.snapshots.put(ID, "inner");
+        });
+        seen.put("seenByOuter", this.snapshots.get(ID).orElse(NONE));
+      });
+      return seen;
+    };
+  }
+
+  private JooqAction<Map<String, String>> snapshotsRecordedBySuccessiveTransactions() {
+    return create -> {
+      final var seen = new HashMap<String, String>();
+      inTransaction(TransactionDefinition.PROPAGATION_REQUIRED, () -> this.snapshots.put(ID, "first"));
+      inTransaction(
+          TransactionDefinition.PROPAGATION_REQUIRED,
+          () -> seen.put("seenBySecond", this.snapshots.get(ID).orElse(NONE)));
+      return seen;
+    };
+  }
+
+  private void inTransaction(final int propagation, final Runnable work) {
+    final var template = new TransactionTemplate(this.transactionManager);
+    template.setPropagationBehavior(propagation);
+    template.executeWithoutResult(status -> work.run());
+  }
+
+}
@@ -0,0 +1,176 @@
+package io.github.krloxz.fws;
+
+import static io.github.krloxz.fws.test.gherkin.TestScenario.given;
+import static io.github.krloxz.fws.test.gherkin.actions.Actions.result;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.mockito.Mockito.mockingDetails;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.jooq.Field;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.modulith.events.core.EventPublicationRepository;
+import org.springframework.modulith.events.core.EventSerializer;
+
+import io.github.krloxz.fws.support.EventPublicationHousekeeping;
+import io.github.krloxz.fws.test.FwsApplicationTest;
+import io.github.krloxz.fws.test.gherkin.actions.JooqAction;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Tests the housekeeping of the event publication registry.
+ *
+ * @author Carlos Gomez
+ */
+@FwsApplicationTest
+class EventPublicationHousekeepingTest {
+
+  private static final Table<?> EVENT_PUBLICATION = DSL.table(DSL.name("event_publication"));
+  private static final Field<UUID> ID = DSL.field(DSL.name("id"), UUID.class);
+  private static final UUID OLD_COMPLETED = UUID.fromString("5b3c1a8e-0d6f-4e61-9a3b-3f4a1c2d9e01");
+  private static final UUID RECENT_COMPLETED = UUID.fromString("5b3c1a8e-0d6f-4e61-9a3b-3f4a1c2d9e02");
+  private static final UUID PENDING = UUID.fromString("5b3c1a8e-0d6f-4e61-9a3b-3f4a1c2d9e03");
+
+  @Autowired
+  private EventPublicationHousekeeping housekeeping;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  @SpyBean
+  private EventPublicationRepository repository;
+
+  @SpyBean
+  private EventSerializer serializer;
+
+  @Value("${fws.events.publications.resubmission.batch-size}")
+  private int batchSize;
+
+  @Test
+  void purgeCompletedPublicationsOlderThanTheRetention() {
+    given(publication(OLD_COMPLETED, Duration.ofDays(9), Duration.ofDays(8)))
+        .and(publication(RECENT_COMPLETED, Duration.ofDays(2), Duration.ofDays(1)))
+        .and(publication(PENDING, Duration.ofDays(10), null))
+        .when(completedPublicationsPurged())
+        .then(publicationIds())
+        .contains(jsonPath("$").value(contains(RECENT_COMPLETED.toString(), PENDING.toString())));
+  }
+
+  @Test
+  void reportPendingAndCompletedPublications() {
+    given(publication(OLD_COMPLETED, Duration.ofDays(9), Duration.ofDays(8)))
+        .and(publication(RECENT_COMPLETED, Duration.ofDays(2), Duration.ofDays(1)))
+        .and(publication(PENDING, Duration.ofDays(2), null))
+        .when(gauges())
+        .then(result())
+        .contains(jsonPath("pending").value(1.0))
+        .contains(jsonPath("completed").value(2.0))
+        .contains(jsonPath("oldestPendingAge").value(greaterThanOrEqualTo((double) Duration.ofDays(2).toSeconds())));
+  }
+
+  @Test
+  void resubmitOnlyPublicationsPublishedBeforeTheGivenInstant() {
+    final var instant = Instant.now();
+    given(publication(PENDING, Duration.ofSeconds(-10), null))
+        .when(incompletePublicationsResubmittedBefore(instant))
+        .then(result())
+        .contains(jsonPath("$").value(0));
+  }
+
+  @Test
+  void resubmitLoadingEachIncompletePublicationOnce() {
+    given(publications(this.batchSize + 1, Duration.ofDays(1)))
+        .when(incompletePublicationsResubmittedBefore(Instant.now()))
+        .then(publicationsLoaded())
+        .contains(jsonPath("deserialized").value(this.batchSize + 1))
+        .contains(jsonPath("loadedByTheRegistry").value(0));
+  }
+
+  private static JooqAction<Integer> publications(final int count, final Duration publishedAgo) {
+    return create -> IntStream.range(0, count)
+        .map(index -> publication(UUID.randomUUID(), publishedAgo, null).perform(create))
+        .sum();
+  }
+
+  private static JooqAction<Integer> publication(
+      final UUID id, final Duration publishedAgo, final Duration completedAgo) {
+    final var now = OffsetDateTime.now();
+    return create -> create.insertInto(EVENT_PUBLICATION)
+        .set(ID, id)
+        .set(DSL.field(DSL.name("listener_id"), String.class), "housekeeping.test.listener")
+        .set(DSL.field(DSL.name("event_type"), String.class), LinkedHashMap.class.getName())
+        .set(DSL.field(DSL.name("serialized_event"), String.class), "{}")
+        .set(DSL.field(DSL.name("publication_date"), OffsetDateTime.class), now.minus(publishedAgo))
+        .set(
+            DSL.field(DSL.name("completion_date"), OffsetDateTime.class),
+            completedAgo == null ? null : now.minus(completedAgo))
+        .execute();
+  }
+
+  private JooqAction<Void> completedPublicationsPurged() {
+    return create -> {
+      this.housekeeping.purgeCompletedPublications();
+      return null;
+    };
+  }
+
+  private JooqAction<Integer> incompletePublicationsResubmittedBefore(final Instant instant) {
+    return create -> {
+      try {
+        return this.housekeeping.resubmitIncompletePublicationsPublishedBefore(instant);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    };
+  }
+
+  private static JooqAction<List<UUID>> publicationIds() {
+    return create -> create.select(ID)
+        .from(EVENT_PUBLICATION)
+        .orderBy(ID)
+        .fetch(ID);
+  }
+
+  /**
+   * Counts the publications deserialized by the registry's serializer, once per publication loaded,
+   * and the times the registry was asked to load the incomplete publications at once.
+   */
+  private JooqAction<Map<String, Long>> publicationsLoaded() {
+    return create -> Map.of(
+        "deserialized", mockingDetails(this.serializer).getInvocations()
+            .stream()
+            .filter(invocation -> invocation.getMethod().getName().equals("deserialize"))
+            .count(),
+        "loadedByTheRegistry", mockingDetails(this.repository).getInvocations()
+            .stream()
+            .filter(invocation -> invocation.getMethod().getName().startsWith("findIncompletePublications"))
+            .count());
+  }
+
+  private JooqAction<Map<String, Double>> gauges() {
+    return create -> Map.of(
+        "pending", gauge("fws.events.publications.pending"),
+        "completed", gauge("fws.events.publications.completed"),
+        "oldestPendingAge", gauge("fws.events.publications.oldest.pending.age"));
+  }
+
+  private double gauge(final String name) {
+    return this.registry.get(name).gauge().value();
+  }
+
+}
@@ -27,7 +27,8 @@ class FwsApiTest {
         .contains(status().isOk())
         .contains(jsonPath("_links.self.href").value("http://localhost/"))
         .contains(jsonPath("_links.freelancers.href").value("http://localhost/freelancers"))
-        .contains(jsonPath("_links.projects.href").value("http://localhost/projects"));
+        .contains(jsonPath("_links.projects.href").value("http://localhost/projects"))
+        .contains(jsonPath("_links.changes.href").value("http://localhost/changes"));
   }
 
   private RestApiAction rootUrlRequested() {
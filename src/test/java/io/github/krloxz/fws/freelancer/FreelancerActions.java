@@ -3,6 +3,8 @@ package io.github.krloxz.fws.freelancer;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.http.HttpHeaders;
+
 import io.github.krloxz.fws.freelancer.application.dtos.AddressDto;
 import io.github.krloxz.fws.freelancer.application.dtos.CommunicationChannelDto;
 import io.github.krloxz.fws.freelancer.application.dtos.FreelancerDto;
@@ -43,14 +45,59 @@ final class FreelancerActions {
     return restApi -> restApi.get("/freelancers/" + freelancerId());
   }
 
+  RestApiAction retrievedIfNoneMatch(final String eTag) {
+    return restApi -> restApi.withHeader(HttpHeaders.IF_NONE_MATCH, eTag).get("/freelancers/" + freelancerId());
+  }
+
+  RestApiAction retrievedByIds(final String... ids) {
+    return restApi -> restApi.get("/freelancers?id={id}" + "&id={id}".repeat(ids.length - 1), (Object[]) ids);
+  }
+
+  RestApiAction retrievedByIdFrom(final String cursor, final String id) {
+    return restApi -> restApi.get("/freelancers?cursor={cursor}&id={id}", cursor, id);
+  }
+
   RestApiAction listed(final int page, final int size) {
     return restApi -> restApi.get("/freelancers?page={page}&size={size}", page, size);
   }
 
+  RestApiAction listedWithoutTotal(final int page, final int size) {
+    return restApi -> restApi.get("/freelancers?withTotal=false&page={page}&size={size}", page, size);
+  }
+
+  RestApiAction listedFrom(final String cursor, final int size) {
+    return restApi -> restApi.get("/freelancers?cursor={cursor}&size={size}", cursor, size);
+  }
+
+  RestApiAction listedSortedBy(final String... sort) {
+    return restApi -> restApi.get(
+        "/freelancers?sort={sort}" + "&sort={sort}".repeat(sort.length - 1), (Object[]) sort);
+  }
+
+  RestApiAction searched(final String filters) {
+    return restApi -> restApi.get("/freelancers?" + filters);
+  }
+
+  RestApiAction imported(final Object... lines) {
+    return restApi -> restApi.postLines("/freelancers/import", lines);
+  }
+
+  RestApiAction exported() {
+    return restApi -> restApi.get("/freelancers/export");
+  }
+
+  RestApiAction exportedAs(final String mediaType) {
+    return restApi -> restApi.withHeader(HttpHeaders.ACCEPT, mediaType).get("/freelancers/export");
+  }
+
   RestApiAction listed() {
     return restApi -> restApi.get("/freelancers");
   }
 
+  RestApiAction changesListedSince(final long position) {
+    return restApi -> restApi.get("/changes?since={since}", position);
+  }
+
   RestApiAction collection() {
     return listed();
   }
@@ -67,6 +114,11 @@ final class FreelancerActions {
     return restApi -> restApi.patch("/freelancers/" + freelancerId() + "/nicknames", nicknames);
   }
 
+  RestApiAction updatesNicknamesIfMatch(final String eTag, final String... nicknames) {
+    return restApi -> restApi.withHeader(HttpHeaders.IF_MATCH, eTag)
+        .patch("/freelancers/" + freelancerId() + "/nicknames", nicknames);
+  }
+
   RestApiAction updatesWage(final HourlyWageDto wage) {
     return restApi -> restApi.patch("/freelancers/" + freelancerId() + "/wage", wage);
   }
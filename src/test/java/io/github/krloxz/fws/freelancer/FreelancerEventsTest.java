@@ -2,13 +2,31 @@ package io.github.krloxz.fws.freelancer;
 
 import static io.github.krloxz.fws.freelancer.FreelancerActions.freelancer;
 import static io.github.krloxz.fws.freelancer.FreelancerActions.freelancers;
+import static io.github.krloxz.fws.freelancer.FreelancerMother.steveRogers;
 import static io.github.krloxz.fws.freelancer.FreelancerMother.tonyStark;
+import static io.github.krloxz.fws.test.DomainEventAction.resubmitted;
+import static io.github.krloxz.fws.test.DomainEventAction.together;
 import static io.github.krloxz.fws.test.PublishedEventsActionExtension.publishedEvents;
 import static io.github.krloxz.fws.test.gherkin.TestScenario.given;
+import static io.github.krloxz.fws.test.gherkin.actions.Actions.systemReady;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
+import java.util.List;
+import java.util.UUID;
+
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.OptimisticLockingFailureException;
 
+import io.github.krloxz.fws.freelancer.domain.Freelancer;
+import io.github.krloxz.fws.freelancer.domain.FreelancerRepository;
 import io.github.krloxz.fws.project.application.ProjectDto;
 import io.github.krloxz.fws.project.application.ProjectDtoBuilder;
 import io.github.krloxz.fws.test.FwsApplicationTest;
@@ -21,6 +39,9 @@ import io.github.krloxz.fws.test.FwsApplicationTest;
 @FwsApplicationTest
 class FreelancerEventsTest {
 
+  @SpyBean
+  private FreelancerRepository repository;
+
   @Test
   void freelancerJoinsProjectSuccessfully() {
     given(freelancer(tonyStark()).registered())
@@ -30,6 +51,79 @@ class FreelancerEventsTest {
             jsonPath("_embedded.freelancers[0].weeklyAvailability").value(tonyStark().weeklyAvailability() - 30));
   }
 
+  @Test
+  void freelancerJoinsSeveralProjectsAtOnce() {
+    given(freelancer(tonyStark()).registered())
+        .when(together(
+            freelancer(tonyStark()).joins(avengers(), 10),
+            freelancer(tonyStark()).joins(guardians(), 20)))
+        .then(freelancers().collection())
+        .contains(
+            jsonPath("_embedded.freelancers[0].weeklyAvailability").value(tonyStark().weeklyAvailability() - 30));
+  }
+
+  @Test
+  void publishEventForTheProjectThatOverflowsWhenFreelancerJoinsSeveralProjectsAtOnce() {
+    given(freelancer(tonyStark()).registered())
+        .when(together(
+            freelancer(tonyStark()).joins(avengers(), 10),
+            freelancer(tonyStark()).joins(guardians(), tonyStark().weeklyAvailability())))
+        .then(publishedEvents())
+        .contains(jsonPath("$.[2].projectId.value").value(guardians().id().orElseThrow()))
+        .contains(jsonPath("$.[2].committedHours").value(tonyStark().weeklyAvailability()))
+        .contains(jsonPath("$.[2].availableHours").value(tonyStark().weeklyAvailability() - 10));
+  }
+
+  @Test
+  void freelancerJoinsProjectWhenUpdatedConcurrently() {
+    doThrow(new OptimisticLockingFailureException("Tony Stark was updated concurrently"))
+        .doCallRealMethod()
+        .when(this.repository)
+        .updateAll(anyList());
+    given(freelancer(tonyStark()).registered())
+        .when(freelancer(tonyStark()).joins(avengers(), 30))
+        .then(freelancers().collection())
+        .contains(
+            jsonPath("_embedded.freelancers[0].weeklyAvailability").value(tonyStark().weeklyAvailability() - 30));
+  }
+
+  @Test
+  void otherFreelancersJoinProjectsWhenOneFreelancerOfTheBatchFails() {
+    final var steveRogersId = UUID.fromString(steveRogers().id().orElseThrow());
+    doThrow(new OptimisticLockingFailureException("Steve Rogers was updated concurrently"))
+        .when(this.repository)
+        .updateAll(argThat((final List<Freelancer> freelancers) -> freelancers.stream()
+            .anyMatch(freelancer -> freelancer.id().equals(steveRogersId))));
+    final var tonyStarkJoins = freelancer(tonyStark()).joins(avengers(), 10);
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(together(tonyStarkJoins, freelancer(steveRogers()).joins(avengers(), 20))
+            .awaitingOnly(tonyStarkJoins))
+        .then(freelancers().collection())
+        .contains(jsonPath("_embedded.freelancers[?(@.firstName == 'Tony')].weeklyAvailability")
+            .value(contains(tonyStark().weeklyAvailability() - 10)))
+        .contains(jsonPath("_embedded.freelancers[?(@.firstName == 'Steve')].weeklyAvailability")
+            .value(contains(steveRogers().weeklyAvailability())));
+  }
+
+  @Test
+  void freelancerJoinsProjectWhenTheFailedJoinIsResubmitted() {
+    doThrow(new OptimisticLockingFailureException("Tony Stark was updated concurrently"))
+        .when(this.repository)
+        .updateAll(anyList());
+    final var tonyStarkJoins = freelancer(tonyStark()).joins(avengers(), 30);
+    given(freelancer(tonyStark()).registered())
+        .and(together(tonyStarkJoins).awaitingOnly());
+    // Every attempt of the join fails, so its publication is left incomplete
+    verify(this.repository, timeout(1000).times(3)).updateAll(anyList());
+    doCallRealMethod().when(this.repository).updateAll(anyList());
+    given(systemReady())
+        .when(resubmitted(tonyStarkJoins))
+        .then(freelancers().collection())
+        .contains(
+            jsonPath("_embedded.freelancers[0].weeklyAvailability").value(tonyStark().weeklyAvailability() - 30));
+  }
+
   @Test
   void publishEventWhenFreelancerFailsToCommitMoreHoursThanAvailable() {
     given(freelancer(tonyStark()).registered())
@@ -59,4 +153,13 @@ class FreelancerEventsTest {
         .build();
   }
 
+  ProjectDto guardians() {
+    return new ProjectDtoBuilder()
+        .id("0b5d5a4c-2f8e-4f43-9a6a-7f3f2f4c9d1e")
+        .name("Guardians of the Galaxy")
+        .description("A group of intergalactic criminals")
+        .requiredHours(100)
+        .build();
+  }
+
 }
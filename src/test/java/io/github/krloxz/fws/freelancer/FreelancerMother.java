@@ -3,6 +3,7 @@ package io.github.krloxz.fws.freelancer;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import io.github.krloxz.fws.freelancer.application.dtos.AddressDtoBuilder;
 import io.github.krloxz.fws.freelancer.application.dtos.CommunicationChannelDto;
@@ -93,6 +94,28 @@ public abstract class FreelancerMother {
         .build();
   }
 
+  public static FreelancerDto freelancerWithEmails(final int count) {
+    return new FreelancerDtoBuilder()
+        .firstName("Peter")
+        .lastName("Parker")
+        .gender(Gender.MALE)
+        .birthDate(LocalDate.parse("2001-08-10"))
+        .address(
+            new AddressDtoBuilder()
+                .street("20 Ingram St")
+                .city("Queens")
+                .state("NY")
+                .zipCode("11375")
+                .country("USA")
+                .build())
+        .wage(new HourlyWageDto(new BigDecimal("20"), "USD"))
+        .weeklyAvailability(20)
+        .addCommunicationChannels(IntStream.range(0, count)
+            .mapToObj(index -> email("peter" + index + "@dailybugle.com"))
+            .toArray(CommunicationChannelDto[]::new))
+        .build();
+  }
+
   public static FreelancerDto unregistered() {
     return new FreelancerDtoBuilder()
         .id("4a6142db-d20d-4016-9742-77753c0d06c7")
@@ -2,14 +2,24 @@ package io.github.krloxz.fws.freelancer;
 
 import static io.github.krloxz.fws.freelancer.FreelancerActions.freelancer;
 import static io.github.krloxz.fws.freelancer.FreelancerActions.freelancers;
+import static io.github.krloxz.fws.freelancer.FreelancerMother.steveRogers;
+import static io.github.krloxz.fws.freelancer.FreelancerMother.tonyStark;
+import static io.github.krloxz.fws.test.QueryPlans.queryPlans;
 import static io.github.krloxz.fws.test.gherkin.TestScenario.given;
 import static io.github.krloxz.fws.test.gherkin.actions.Actions.response;
 import static io.github.krloxz.fws.test.gherkin.actions.Actions.systemReady;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.util.UUID;
+
 import org.junit.jupiter.api.Test;
 
+import io.github.krloxz.fws.core.KeysetCursor;
 import io.github.krloxz.fws.test.FwsApplicationTest;
 
 /**
@@ -143,6 +153,63 @@ class FreelancersApiListEndpointTest {
         .contains(jsonPath("page.number").value(0));
   }
 
+  @Test
+  void listsPagePastTheLastOne() {
+    given(freelancer("Bruce", "Banner").registered())
+        .and(freelancer("Clint", "Barton").registered())
+        .when(freelancers().listed(5, 3))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers").doesNotExist())
+        .contains(jsonPath("page.totalElements").value(2))
+        .contains(jsonPath("page.number").value(5));
+  }
+
+  @Test
+  void listsPageWithoutTotal() {
+    given(freelancer("Bruce", "Banner").registered())
+        .and(freelancer("Clint", "Barton").registered())
+        .and(freelancer("Thor", "Odinson").registered())
+        .and(freelancer("Steve", "Rogers").registered())
+        .when(freelancers().listedWithoutTotal(0, 3))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers.length()").value(3))
+        .contains(jsonPath("_embedded.freelancers[0].firstName").value("Bruce"))
+        .contains(jsonPath("_links.register.href").isNotEmpty())
+        .contains(jsonPath("_links.next.href").value(containsString("page=1")))
+        .contains(jsonPath("_links.last.href").doesNotExist())
+        .contains(jsonPath("page.size").value(3))
+        .contains(jsonPath("page.number").value(0))
+        .contains(jsonPath("page.totalElements").doesNotExist())
+        .contains(jsonPath("page.totalPages").doesNotExist());
+  }
+
+  @Test
+  void listsLastPageWithoutTotal() {
+    given(freelancer("Bruce", "Banner").registered())
+        .and(freelancer("Clint", "Barton").registered())
+        .and(freelancer("Thor", "Odinson").registered())
+        .and(freelancer("Steve", "Rogers").registered())
+        .when(freelancers().listedWithoutTotal(1, 3))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers.length()").value(1))
+        .contains(jsonPath("_embedded.freelancers[0].firstName").value("Steve"))
+        .contains(jsonPath("_links.prev.href").value(containsString("page=0")))
+        .contains(jsonPath("_links.next.href").doesNotExist())
+        .contains(jsonPath("page.totalElements").doesNotExist());
+  }
+
+  @Test
+  void countsWithinPageQuery() {
+    given(freelancer("Bruce", "Banner").registered())
+        .when(freelancers().listed(0, 3))
+        .then(queryPlans())
+        .contains(jsonPath("[*].query").value(hasItem(containsString("over ()"))))
+        .contains(jsonPath("[?(@.query =~ /select count\\(\\*\\) from.*/i)]").isEmpty());
+  }
+
   @Test
   void listsDefaultPageWithDefaultSize() {
     final var defaultPageSize = 5;
@@ -169,9 +236,301 @@ class FreelancersApiListEndpointTest {
         .contains(jsonPath("page.number").value(0));
   }
 
+  @Test
+  void listsFirstKeysetPage() {
+    given(freelancer("Bruce", "Banner").registered())
+        .and(freelancer("Clint", "Barton").registered())
+        .and(freelancer("Thor", "Odinson").registered())
+        .and(freelancer("Steve", "Rogers").registered())
+        .and(freelancer("Natasha", "Romanoff").registered())
+        .when(freelancers().listedFrom("", 3))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers.length()").value(3))
+        .contains(jsonPath("_embedded.freelancers[0].firstName").value("Bruce"))
+        .contains(jsonPath("_embedded.freelancers[1].firstName").value("Clint"))
+        .contains(jsonPath("_embedded.freelancers[2].firstName").value("Thor"))
+        .contains(jsonPath("_links.register.href").isNotEmpty())
+        .contains(jsonPath("_links.self.href").value("http://localhost/freelancers?cursor=&size=3"))
+        .contains(jsonPath("_links.first.href").value("http://localhost/freelancers?size=3&cursor="))
+        .contains(jsonPath("_links.prev.href").doesNotExist())
+        .contains(jsonPath("_links.next.href").value(startsWith("http://localhost/freelancers?size=3&cursor=")))
+        .contains(jsonPath("page").doesNotExist());
+  }
+
+  @Test
+  void listsKeysetPageAfterCursor() {
+    final var tonyStarkId = UUID.fromString(tonyStark().id().orElseThrow());
+    final var steveRogersId = UUID.fromString(steveRogers().id().orElseThrow());
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancers().listedFrom(KeysetCursor.after("Rogers", steveRogersId).encode(), 3))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers.length()").value(1))
+        .contains(jsonPath("_embedded.freelancers[0].firstName").value("Tony"))
+        .contains(jsonPath("_links.prev.href").value(
+            "http://localhost/freelancers?size=3&cursor=" + KeysetCursor.before("Stark", tonyStarkId).encode()))
+        .contains(jsonPath("_links.next.href").doesNotExist());
+  }
+
+  @Test
+  void listsKeysetPageBeforeCursor() {
+    final var tonyStarkId = UUID.fromString(tonyStark().id().orElseThrow());
+    final var steveRogersId = UUID.fromString(steveRogers().id().orElseThrow());
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancers().listedFrom(KeysetCursor.before("Stark", tonyStarkId).encode(), 3))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers.length()").value(1))
+        .contains(jsonPath("_embedded.freelancers[0].firstName").value("Steve"))
+        .contains(jsonPath("_links.prev.href").doesNotExist())
+        .contains(jsonPath("_links.next.href").value(
+            "http://localhost/freelancers?size=3&cursor=" + KeysetCursor.after("Rogers", steveRogersId).encode()));
+  }
+
+  @Test
+  void failsToListWithInvalidCursor() {
+    given(systemReady())
+        .when(freelancers().listedFrom("invalid", 3))
+        .then(response())
+        .contains(status().isBadRequest());
+  }
+
+  @Test
+  void listsKeysetPageOfFreelancersMatchingFilters() {
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .and(freelancer("Bruce", "Banner").registered())
+        .when(freelancers().searched("cursor=&size=1&state=NY"))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers.length()").value(1))
+        .contains(jsonPath("_embedded.freelancers[0].firstName").value("Bruce"))
+        .contains(jsonPath("_links.next.href").value(containsString("state=NY")));
+  }
+
+  @Test
+  void failsToListKeysetPageWithTotal() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().searched("cursor=&withTotal=true"))
+        .then(response())
+        .contains(status().isBadRequest());
+  }
+
+  @Test
+  void failsToListSortedKeysetPage() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().searched("cursor=&sort=wage"))
+        .then(response())
+        .contains(status().isBadRequest());
+  }
+
+  @Test
+  void failsToRetrieveFreelancersByIdsWithFilters() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().searched("city=Malibu&id=" + tonyStark().id().orElseThrow()))
+        .then(response())
+        .contains(status().isBadRequest());
+  }
+
+  @Test
+  void failsToRetrieveFreelancersByIdsSorted() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().searched("sort=wage&id=" + tonyStark().id().orElseThrow()))
+        .then(response())
+        .contains(status().isBadRequest());
+  }
+
+  @Test
+  void listsFreelancersSortedByWageDescending() {
+    given(freelancer(steveRogers()).registered())
+        .and(freelancer(tonyStark()).registered())
+        .and(freelancer("Bruce", "Banner").registered())
+        .when(freelancers().listedSortedBy("wage,desc"))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers[0].firstName").value("Tony"))
+        .contains(jsonPath("_embedded.freelancers[1].firstName").value("Steve"))
+        .contains(jsonPath("_embedded.freelancers[2].firstName").value("Bruce"));
+  }
+
+  @Test
+  void listsFreelancersSortedByLastNameDescending() {
+    given(freelancer("Bruce", "Banner").registered())
+        .and(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancers().listedSortedBy("lastName,desc"))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers[0].firstName").value("Tony"))
+        .contains(jsonPath("_embedded.freelancers[1].firstName").value("Steve"))
+        .contains(jsonPath("_embedded.freelancers[2].firstName").value("Bruce"));
+  }
+
+  @Test
+  void failsToListSortedByUnsupportedProperty() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().listedSortedBy("firstName"))
+        .then(response())
+        .contains(status().isBadRequest())
+        .contains(jsonPath("type").value(endsWith("/probs/error.html")));
+  }
+
+  @Test
+  void failsToListSortedByMoreThanOneProperty() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().listedSortedBy("lastName", "wage"))
+        .then(response())
+        .contains(status().isBadRequest());
+  }
+
+  @Test
+  void usesIndexToSortByWage() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().listedSortedBy("wage,desc"))
+        .then(queryPlans())
+        .contains(jsonPath("[*].plan").value(hasItem(containsString("freelancer_wage_amount_idx"))));
+  }
+
+  @Test
+  void listsFreelancersInLocation() {
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancers().searched("country=USA&state=NY"))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers.length()").value(1))
+        .contains(jsonPath("_embedded.freelancers[0].firstName").value("Steve"))
+        .contains(jsonPath("page.totalElements").value(1));
+  }
+
+  @Test
+  void listsFreelancersInWageRange() {
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .and(freelancer("Bruce", "Banner").registered())
+        .when(freelancers().searched("currency=USD&minWage=100&maxWage=1000"))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers.length()").value(1))
+        .contains(jsonPath("_embedded.freelancers[0].firstName").value("Steve"))
+        .contains(jsonPath("page.totalElements").value(1));
+  }
+
+  @Test
+  void listsFreelancersInBirthDateRange() {
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancers().searched("minBirthDate=1960-01-01&maxBirthDate=1980-12-31"))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers.length()").value(1))
+        .contains(jsonPath("_embedded.freelancers[0].firstName").value("Tony"));
+  }
+
+  @Test
+  void listsFreelancersWithAvailabilityAndGender() {
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancers().searched("minWeeklyAvailability=40&gender=MALE"))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers.length()").value(2))
+        .contains(jsonPath("page.totalElements").value(2));
+  }
+
+  @Test
+  void listsNoFreelancersWhenNoneMatchFilters() {
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancers().searched("gender=FEMALE"))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers").doesNotExist())
+        .contains(jsonPath("page.totalElements").value(0));
+  }
+
+  @Test
+  void countsFilteredFreelancersWithinPageQuery() {
+    given(freelancer("Bruce", "Banner").registered())
+        .and(freelancer("Clint", "Barton").registered())
+        .and(freelancer(tonyStark()).registered())
+        .when(freelancers().searched("state=NY&page=0&size=1"))
+        .then(queryPlans())
+        .contains(jsonPath("[*].query").value(hasItem(containsString("over ()"))));
+  }
+
+  @Test
+  void keepsFiltersInPageLinks() {
+    given(freelancer("Bruce", "Banner").registered())
+        .and(freelancer("Clint", "Barton").registered())
+        .and(freelancer(tonyStark()).registered())
+        .when(freelancers().searched("state=NY&page=0&size=1"))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_links.next.href").value(containsString("state=NY")))
+        .contains(jsonPath("_links.next.href").value(containsString("page=1")))
+        .contains(jsonPath("page.totalElements").value(2));
+  }
+
+  @Test
+  void usesLocationIndexToFilterByLocation() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().searched("country=USA&state=CA&city=Malibu"))
+        .then(queryPlans())
+        .contains(jsonPath("[*].plan").value(hasItem(containsString("address_location_idx"))));
+  }
+
+  @Test
+  void usesCityIndexToFilterByCity() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().searched("city=Malibu"))
+        .then(queryPlans())
+        .contains(jsonPath("[*].plan").value(hasItem(containsString("address_city_idx"))));
+  }
+
+  @Test
+  void usesWageIndexToFilterByWage() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().searched("currency=USD&minWage=100&maxWage=1000"))
+        .then(queryPlans())
+        .contains(jsonPath("[*].plan").value(hasItem(containsString("freelancer_wage_idx"))));
+  }
+
+  @Test
+  void usesAvailabilityIndexToFilterByAvailability() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().searched("minWeeklyAvailability=45"))
+        .then(queryPlans())
+        .contains(jsonPath("[*].plan").value(hasItem(containsString("freelancer_availability_idx"))));
+  }
+
+  @Test
+  void usesBirthDateIndexesToFilterByBirthDate() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().searched("minBirthDate=1960-01-01&maxBirthDate=1980-12-31"))
+        .and(freelancers().searched("gender=FEMALE&minBirthDate=1960-01-01"))
+        .then(queryPlans())
+        .contains(jsonPath("[*].plan").value(hasItem(containsString("freelancer_birth_date_idx"))))
+        .contains(jsonPath("[*].plan").value(hasItem(containsString("freelancer_gender_birth_date_idx"))));
+  }
+
+  @Test
+  void scansNoTableToSearchFreelancers() {
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancers().searched("country=USA&state=CA&city=Malibu"))
+        .and(freelancers().searched("city=Malibu&page=0&size=1"))
+        .and(freelancers().searched("currency=USD&minWage=100&maxWage=1000"))
+        .and(freelancers().searched("minWeeklyAvailability=45"))
+        .and(freelancers().listedSortedBy("lastName,desc"))
+        .then(queryPlans())
+        .contains(jsonPath("[?(@.tableScans[0])]").isEmpty());
+  }
+
   // TODO: Add tests for the following scenarios:
-  // sorting? -
-  // https://docs.spring.io/spring-data/rest/reference/paging-and-sorting.html#paging-and-sorting.sorting
   // failsToListWithInvalidPageSize
   // failsToListInvalidPage
 
@@ -2,21 +2,31 @@ package io.github.krloxz.fws.freelancer;
 
 import static io.github.krloxz.fws.freelancer.FreelancerActions.freelancer;
 import static io.github.krloxz.fws.freelancer.FreelancerActions.freelancers;
+import static io.github.krloxz.fws.freelancer.FreelancerMother.freelancerWithEmails;
 import static io.github.krloxz.fws.freelancer.FreelancerMother.mobile;
 import static io.github.krloxz.fws.freelancer.FreelancerMother.steveRogers;
 import static io.github.krloxz.fws.freelancer.FreelancerMother.tonyStark;
 import static io.github.krloxz.fws.freelancer.FreelancerMother.unregistered;
+import static io.github.krloxz.fws.test.QueryPlans.queryPlans;
+import static io.github.krloxz.fws.test.QueryPlans.statements;
+import static io.github.krloxz.fws.test.QueryPlans.statementsCleared;
 import static io.github.krloxz.fws.test.gherkin.TestScenario.given;
 import static io.github.krloxz.fws.test.gherkin.actions.Actions.response;
 import static io.github.krloxz.fws.test.gherkin.actions.Actions.systemReady;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.endsWith;
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -24,6 +34,9 @@ import java.math.BigDecimal;
 import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
 
 import io.github.krloxz.fws.freelancer.application.dtos.FreelancerDto;
 import io.github.krloxz.fws.freelancer.application.dtos.FreelancerDtoBuilder;
@@ -83,6 +96,101 @@ class FreelancersApiTest {
         .contains(jsonPath("firstName").value("Tony"));
   }
 
+  @Test
+  void retrievesUpdatedFreelancerAfterRetrievingItBefore() {
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(tonyStark()).retrieved())
+        .when(freelancer(tonyStark()).updatesNicknames("Ironman"))
+        .then(freelancer(tonyStark()).retrieved())
+        .contains(status().isOk())
+        .contains(jsonPath("nicknames").value(hasItems("Ironman")));
+  }
+
+  @Test
+  void returnsEntityTagWhenRetrievingFreelancer() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancer(tonyStark()).retrieved())
+        .then(response())
+        .contains(status().isOk())
+        .contains(header().string(HttpHeaders.ETAG, "\"0\""));
+  }
+
+  @Test
+  void returnsNotModifiedWhenRetrievingFreelancerMatchingEntityTag() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancer(tonyStark()).retrievedIfNoneMatch("\"0\""))
+        .then(response())
+        .contains(status().isNotModified());
+  }
+
+  @Test
+  void retrievesFreelancerChangedSinceEntityTag() {
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(tonyStark()).updatesNicknames("Ironman"))
+        .when(freelancer(tonyStark()).retrievedIfNoneMatch("\"0\""))
+        .then(response())
+        .contains(status().isOk())
+        .contains(header().string(HttpHeaders.ETAG, "\"1\""))
+        .contains(jsonPath("nicknames").value(hasItems("Ironman")));
+  }
+
+  @Test
+  void updatesFreelancerMatchingEntityTag() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancer(tonyStark()).updatesNicknamesIfMatch("\"0\"", "Ironman"))
+        .then(response())
+        .contains(status().isOk())
+        .contains(header().string(HttpHeaders.ETAG, "\"1\""))
+        .contains(jsonPath("nicknames").value(hasItems("Ironman")));
+  }
+
+  @Test
+  void returnsPreconditionFailedWhenUpdatingFreelancerChangedSinceEntityTag() {
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(tonyStark()).updatesNicknames("Ironman"))
+        .when(freelancer(tonyStark()).updatesNicknamesIfMatch("\"0\"", "Shellhead"))
+        .then(response())
+        .contains(status().isPreconditionFailed())
+        .contains(jsonPath("type").value(endsWith("/probs/error.html")));
+  }
+
+  @Test
+  void retrievesSeveralFreelancersByIds() {
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancers().retrievedByIds(steveRogers().id().orElseThrow(), tonyStark().id().orElseThrow()))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers.length()").value(2))
+        .contains(jsonPath("_embedded.freelancers[0].firstName").value("Steve"))
+        .contains(jsonPath("_embedded.freelancers[1].firstName").value("Tony"))
+        .contains(jsonPath("_embedded.freelancers[0]._links.self.href").isNotEmpty())
+        .contains(jsonPath("missingIds").isEmpty());
+  }
+
+  @Test
+  void reportsMissingIdsWhenRetrievingSeveralFreelancers() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().retrievedByIds(
+            tonyStark().id().orElseThrow(), unregistered().id().orElseThrow(), "not-an-id"))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers.length()").value(1))
+        .contains(jsonPath("_embedded.freelancers[0].firstName").value("Tony"))
+        .contains(jsonPath("missingIds.length()").value(2))
+        .contains(jsonPath("missingIds[0]").value(unregistered().id().orElseThrow()))
+        .contains(jsonPath("missingIds[1]").value("not-an-id"));
+  }
+
+  @Test
+  void rejectsRetrievingFreelancersByIdFromCursor() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().retrievedByIdFrom("", tonyStark().id().orElseThrow()))
+        .then(response())
+        .contains(status().isBadRequest())
+        .contains(jsonPath("type").value(endsWith("/probs/error.html")));
+  }
+
   @Test
   void returnsNotFoundWhenRetrievingUnregisteredFreelancer() {
     given(systemReady())
@@ -220,6 +328,183 @@ class FreelancersApiTest {
         .contains(jsonPath("type").value(endsWith("/probs/error.html")));
   }
 
+  @Test
+  void exportsFreelancersAsNewlineDelimitedJson() {
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancers().exported())
+        .then(response())
+        .contains(status().isOk())
+        .contains(content().contentTypeCompatibleWith("application/x-ndjson"))
+        .contains(content().string(matchesPattern("(\\{[^\\n]*\\}\\n){2}")))
+        .contains(content().string(containsString("\"firstName\":\"Tony\"")))
+        .contains(content().string(containsString("\"firstName\":\"Steve\"")))
+        .contains(content().string(not(containsString("_links"))));
+  }
+
+  @Test
+  void exportsFreelancersAsCsv() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().exportedAs("text/csv"))
+        .then(response())
+        .contains(status().isOk())
+        .contains(content().contentTypeCompatibleWith("text/csv"))
+        .contains(content().string(startsWith("id,firstName,lastName,")))
+        .contains(content().string(containsString(",Tony,Stark,")));
+  }
+
+  @Test
+  void exportsNoFreelancersWhenNoneRegistered() {
+    given(systemReady())
+        .when(freelancers().exported())
+        .then(response())
+        .contains(status().isOk())
+        .contains(content().string(""));
+  }
+
+  @Test
+  void registersImportedFreelancers() {
+    given(systemReady())
+        .when(freelancers().imported(tonyStark(), steveRogers()))
+        .and(freelancers().listed())
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("_embedded.freelancers[*].firstName").value(hasItems("Tony", "Steve")))
+        .contains(jsonPath("page.totalElements").value(2));
+  }
+
+  @Test
+  void reportsImportedFreelancers() {
+    given(systemReady())
+        .when(freelancers().imported(tonyStark(), "", steveRogers()))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("lines").value(3))
+        .contains(jsonPath("imported").value(2))
+        .contains(jsonPath("failed").value(0))
+        .contains(jsonPath("importedPerSecond").value(greaterThan(0.0)))
+        .contains(jsonPath("errors").isEmpty());
+  }
+
+  @Test
+  void reportsInvalidLinesWhenImportingFreelancers() {
+    given(systemReady())
+        .when(freelancers().imported(tonyStark(), "{not json", invalidFreelancer()))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("imported").value(1))
+        .contains(jsonPath("failed").value(2))
+        .contains(jsonPath("errors[0].line").value(2))
+        .contains(jsonPath("errors[0].errors[0]").value(startsWith("Invalid JSON")))
+        .contains(jsonPath("errors[1].line").value(3))
+        .contains(jsonPath("errors[1].errors").value(hasItem(startsWith("firstName: "))));
+  }
+
+  @Test
+  void reportsExistingFreelancersWhenImportingFreelancers() {
+    given(freelancer(tonyStark()).registered())
+        .when(freelancers().imported(steveRogers(), tonyStark()))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("imported").value(1))
+        .contains(jsonPath("failed").value(1))
+        .contains(jsonPath("errors[0].line").value(2))
+        .contains(jsonPath("errors[0].errors[0]").value(containsString("already exists")));
+  }
+
+  @Test
+  void listsChangesOfFreelancersInTheOrderTheyWereCommitted() {
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancer(tonyStark()).updatesNicknames("Ironman"))
+        .then(freelancers().changesListedSince(0))
+        .contains(status().isOk())
+        .contains(jsonPath("changes[*].resource").value(contains("freelancers", "freelancers", "freelancers")))
+        .contains(jsonPath("changes[*].id").value(contains(
+            tonyStark().id().orElseThrow(), steveRogers().id().orElseThrow(), tonyStark().id().orElseThrow())))
+        .contains(jsonPath("changes[*].type").value(contains("CREATED", "CREATED", "UPDATED")))
+        .contains(jsonPath("changes[*].position").value(contains(1, 2, 3)))
+        .contains(jsonPath("next").value(3));
+  }
+
+  @Test
+  void listsChangesOfFreelancersSinceTheGivenPosition() {
+    given(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancers().changesListedSince(1))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("changes", hasSize(1)))
+        .contains(jsonPath("changes[0].id").value(steveRogers().id().orElseThrow()))
+        .contains(jsonPath("next").value(2));
+  }
+
+  @Test
+  void scansNoTableToReadOrWriteFreelancers() {
+    final var tonyStark = tonyStark();
+    final var removedChannelId = tonyStark.communicationChannels().iterator().next().id().orElseThrow();
+    given(freelancer(tonyStark).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancer(tonyStark).retrieved())
+        .and(freelancers().retrievedByIds(steveRogers().id().orElseThrow(), tonyStark.id().orElseThrow()))
+        .and(freelancer(tonyStark).movesTo(steveRogers().address()))
+        .and(freelancer(tonyStark).updatesNicknames("Ironman"))
+        .and(freelancer(tonyStark).updatesWage(new HourlyWageDto(new BigDecimal("1000"), "USD")))
+        .and(freelancer(tonyStark).addsCommunicationChannel(mobile("901-234-8765")))
+        .and(freelancer(tonyStark).removesCommunicationChannel(removedChannelId))
+        .and(freelancers().exported())
+        .then(queryPlans())
+        .contains(jsonPath("[*].query").value(hasItem(startsWith("update"))))
+        .contains(jsonPath("[?(@.tableScans[0])]").isEmpty());
+  }
+
+  @Test
+  void insertsCommunicationChannelsWithASingleBatch() {
+    given(systemReady())
+        .when(freelancer(tonyStark()).registered())
+        .then(statements())
+        .contains(jsonPath("[?(@.query =~ /insert into .*communication_channels.*/i)].type").value(contains("BATCH")));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = { 1, 10, 1000 })
+  void insertsAnyNumberOfCommunicationChannelsWithASingleBatch(final int channels) {
+    given(systemReady())
+        .when(freelancer(freelancerWithEmails(channels)).registered())
+        .then(statements())
+        .contains(jsonPath("[?(@.query =~ /insert into .*communication_channels.*/i)].type").value(contains("BATCH")));
+  }
+
+  @Test
+  void writesOnlyTheChangedRowsWhenUpdatingFreelancers() {
+    given(freelancer(tonyStark()).registered())
+        .and(statementsCleared())
+        .when(freelancer(tonyStark()).addsCommunicationChannel(mobile("901-234-8765")))
+        .then(statements())
+        .contains(jsonPath("[?(@.query =~ /insert into .*communication_channels.*/i)]", hasSize(1)))
+        .contains(jsonPath("[?(@.query =~ /(update|delete from) .*(communication_channels|addresses).*/i)]").isEmpty());
+  }
+
+  @Test
+  void writesOnlyTheChangedColumnsWhenUpdatingFreelancers() {
+    given(freelancer(tonyStark()).registered())
+        .and(statementsCleared())
+        .when(freelancer(tonyStark()).updatesWage(new HourlyWageDto(new BigDecimal("1000"), "USD")))
+        .then(statements())
+        .contains(jsonPath("[?(@.query =~ /update .*freelancers.* set .*hourly_wage_amount.*/i)]", hasSize(1)))
+        .contains(jsonPath("[?(@.query =~ /update .*freelancers.*(first_name|hourly_wage_currency).*/i)]").isEmpty())
+        .contains(jsonPath("[?(@.query =~ /.*(communication_channels|addresses).*/i && @.type != 'READ')]").isEmpty());
+  }
+
+  @Test
+  void writesNothingWhenUpdatingFreelancersWithoutChanges() {
+    given(freelancer(tonyStark()).registered())
+        .and(statementsCleared())
+        .when(freelancer(tonyStark()).movesTo(tonyStark().address()))
+        .then(statements())
+        .contains(jsonPath("[?(@.type != 'READ')]").isEmpty());
+  }
+
   private static FreelancerDto invalidFreelancer() {
     return new FreelancerDtoBuilder().build();
   }
@@ -1,8 +1,15 @@
 package io.github.krloxz.fws.project;
 
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.web.servlet.MvcResult;
 
 import io.github.krloxz.fws.freelancer.application.dtos.FreelancerDto;
@@ -11,8 +18,10 @@ import io.github.krloxz.fws.project.application.ProjectDto;
 import io.github.krloxz.fws.project.domain.FreelancerId;
 import io.github.krloxz.fws.project.domain.FreelancerProjectCommitmentFailed;
 import io.github.krloxz.fws.project.domain.ProjectId;
+import io.github.krloxz.fws.support.EventChains;
 import io.github.krloxz.fws.test.DomainEventAction;
 import io.github.krloxz.fws.test.gherkin.actions.Action;
+import io.github.krloxz.fws.test.gherkin.actions.InvalidActionResultException;
 import io.github.krloxz.fws.test.gherkin.actions.VoidAction;
 import io.github.krloxz.fws.test.gherkin.restapi.RestApi;
 import io.github.krloxz.fws.test.gherkin.restapi.RestApiAction;
@@ -24,6 +33,8 @@ import io.github.krloxz.fws.test.gherkin.restapi.RestApiAction;
  */
 final class FreelancerProjectActions {
 
+  private static final int PARALLEL_REQUESTS = 16;
+
   private ProjectDto project;
   private final FreelancerDto freelancer;
 
@@ -35,6 +46,58 @@ final class FreelancerProjectActions {
     return new FreelancerProjectActions(dto);
   }
 
+  static TeamActions freelancers(final FreelancerDto... freelancers) {
+    return new TeamActions(List.of(freelancers));
+  }
+
+  /**
+   * Makes the given number of new freelancers join a project in parallel, and then retrieves the
+   * project once all the join requests have completed.
+   * <p>
+   * Join requests are expected to either succeed or be rejected because the project is fully
+   * allocated, any other outcome fails the action.
+   */
+  static RestApiAction joinInParallel(final ProjectDto project, final int joins, final int hours) {
+    return joinInParallel(
+        project,
+        IntStream.range(0, joins)
+            .mapToObj(i -> new JoinRequest(UUID.randomUUID().toString(), hours))
+            .toList(),
+        Set.of(HttpStatus.OK, HttpStatus.UNPROCESSABLE_ENTITY));
+  }
+
+  private static RestApiAction joinInParallel(
+      final ProjectDto project, final List<JoinRequest> requests, final Set<HttpStatus> expectedStatuses) {
+    final var projectUri = "/projects/" + project.id().orElseThrow();
+    return restApi -> {
+      try (var executor = Executors.newFixedThreadPool(PARALLEL_REQUESTS)) {
+        final var responses = requests.stream()
+            .map(request -> executor.submit(() -> restApi.post(projectUri + "/join", request)))
+            .toList();
+        final var unexpectedStatuses = responses.stream()
+            .map(FreelancerProjectActions::await)
+            .map(result -> HttpStatus.valueOf(result.getResponse().getStatus()))
+            .filter(status -> !expectedStatuses.contains(status))
+            .toList();
+        if (!unexpectedStatuses.isEmpty()) {
+          throw new InvalidActionResultException("Parallel joins have failed with " + unexpectedStatuses);
+        }
+      }
+      return restApi.get(projectUri);
+    };
+  }
+
+  private static MvcResult await(final Future<MvcResult> response) {
+    try {
+      return response.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (final ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
   VoidAction registered() {
     return new VoidAction();
   }
@@ -44,6 +107,18 @@ final class FreelancerProjectActions {
     return new WithAllocationBuilder();
   }
 
+  /**
+   * Reports that the freelancer failed to commit to the project, whether or not they joined it.
+   */
+  DomainEventAction failsToCommitTo(final ProjectDto project) {
+    this.project = project;
+    return () -> new FreelancerProjectCommitmentFailed(
+        new FreelancerId(freelancerId()),
+        new ProjectId(UUID.fromString(projectId())),
+        this.freelancer.weeklyAvailability() + 10,
+        this.freelancer.weeklyAvailability());
+  }
+
   private String projectId() {
     return this.project.id().orElseThrow();
   }
@@ -63,6 +138,34 @@ final class FreelancerProjectActions {
       return restApi -> restApi.post("/projects/" + projectId() + "/join", new JoinRequest(freelancerId(), hours));
     }
 
+    /**
+     * Joins the project several times at once, and then retrieves the project once all the join
+     * requests have completed.
+     * <p>
+     * Join requests are expected to either succeed, be rejected because the freelancer has already
+     * joined, or be rejected because they conflict with each other, any other outcome fails the action.
+     */
+    RestApiAction inParallelWithAllocation(final int joins, final int hours) {
+      return joinInParallel(
+          FreelancerProjectActions.this.project,
+          IntStream.range(0, joins)
+              .mapToObj(i -> new JoinRequest(freelancerId(), hours))
+              .toList(),
+          Set.of(HttpStatus.OK, HttpStatus.UNPROCESSABLE_ENTITY, HttpStatus.CONFLICT));
+    }
+
+    /**
+     * Joins the project and then waits for the consistency token returned by the join.
+     */
+    RestApiAction withAllocationAwaitingConsistency(final int hours) {
+      return restApi -> {
+        final var token = withAllocation(hours).perform(restApi)
+            .getResponse()
+            .getHeader(EventChains.TOKEN_HEADER);
+        return restApi.withHeader("Prefer", "wait=10").get("/consistency-tokens/{token}", token);
+      };
+    }
+
     Action<ApplicationContext, Void> overCommitingAvailableTime() {
       return freelancerJoinsProject().andThen(freelancerProjectCommitmentFails());
     }
@@ -81,4 +184,18 @@ final class FreelancerProjectActions {
 
   }
 
+  /**
+   * Provides actions for several freelancers joining a project at once.
+   */
+  record TeamActions(List<FreelancerDto> freelancers) {
+
+    RestApiAction join(final ProjectDto project, final int... hours) {
+      final var requests = IntStream.range(0, this.freelancers.size())
+          .mapToObj(i -> new JoinRequest(this.freelancers.get(i).id().orElseThrow(), hours[i]))
+          .toList();
+      return restApi -> restApi.post("/projects/" + project.id().orElseThrow() + "/join/bulk", requests);
+    }
+
+  }
+
 }
@@ -28,6 +28,18 @@ class ProjectActions {
     return restApi -> restApi.get("/projects");
   }
 
+  RestApiAction listedSortedBy(final String... sort) {
+    return restApi -> restApi.get("/projects?sort={sort}" + "&sort={sort}".repeat(sort.length - 1), (Object[]) sort);
+  }
+
+  RestApiAction listedWithoutTotal(final int page, final int size) {
+    return restApi -> restApi.get("/projects?withTotal=false&page={page}&size={size}", page, size);
+  }
+
+  RestApiAction listedFrom(final String cursor, final int size) {
+    return restApi -> restApi.get("/projects?cursor={cursor}&size={size}", cursor, size);
+  }
+
   RestApiAction retrieved() {
     return restApi -> restApi.get("/projects/" + this.project.id().orElseThrow());
   }
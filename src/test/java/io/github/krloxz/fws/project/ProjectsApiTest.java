@@ -4,33 +4,58 @@ import static io.github.krloxz.fws.freelancer.FreelancerMother.steveRogers;
 import static io.github.krloxz.fws.freelancer.FreelancerMother.tonyStark;
 import static io.github.krloxz.fws.freelancer.FreelancerMother.unregistered;
 import static io.github.krloxz.fws.project.FreelancerProjectActions.freelancer;
+import static io.github.krloxz.fws.project.FreelancerProjectActions.freelancers;
+import static io.github.krloxz.fws.project.FreelancerProjectActions.joinInParallel;
 import static io.github.krloxz.fws.project.ProjectActions.project;
 import static io.github.krloxz.fws.project.ProjectActions.projects;
 import static io.github.krloxz.fws.test.PublishedEventsActionExtension.publishedEvents;
+import static io.github.krloxz.fws.test.QueryPlans.queryPlans;
+import static io.github.krloxz.fws.test.QueryPlans.statements;
+import static io.github.krloxz.fws.test.QueryPlans.statementsCleared;
 import static io.github.krloxz.fws.test.assertions.Assertions.embedded;
 import static io.github.krloxz.fws.test.assertions.Assertions.link;
 import static io.github.krloxz.fws.test.gherkin.TestScenario.given;
 import static io.github.krloxz.fws.test.gherkin.actions.Actions.response;
 import static io.github.krloxz.fws.test.gherkin.actions.Actions.systemReady;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.endsWith;
 import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import io.github.krloxz.fws.core.DomainException;
+import io.github.krloxz.fws.core.KeysetCursor;
 import io.github.krloxz.fws.core.PersonName;
 import io.github.krloxz.fws.freelancer.application.dtos.FreelancerDto;
+import io.github.krloxz.fws.freelancer.domain.FreelancerRepository;
 import io.github.krloxz.fws.project.application.ProjectDto;
 import io.github.krloxz.fws.project.application.ProjectDtoBuilder;
 import io.github.krloxz.fws.project.domain.Freelancer;
 import io.github.krloxz.fws.project.domain.FreelancerId;
 import io.github.krloxz.fws.project.domain.FreelancerService;
+import io.github.krloxz.fws.support.EventChains;
 import io.github.krloxz.fws.test.FwsApplicationTest;
+import io.github.krloxz.fws.test.gherkin.restapi.RestApiAction;
 
 /**
  * Tests for the Projects API.
@@ -40,9 +65,18 @@ import io.github.krloxz.fws.test.FwsApplicationTest;
 @FwsApplicationTest
 class ProjectsApiTest {
 
+  private static final String TEAM_MEMBERS_INSERT = "/insert into .?project.?\\..?freelancers.*/i";
+  private static final String TEAM_MEMBERS_UPDATE_OR_DELETE = "/(update|delete from) .?project.?\\..?freelancers.*/i";
+
   @MockBean
   private FreelancerService freelancerService;
 
+  @SpyBean
+  private FreelancerRepository freelancerRepository;
+
+  @Autowired
+  private EventChains eventChains;
+
   @BeforeEach
   void setup() {
     when(this.freelancerService.findFreelancer(new FreelancerId(tonyStark().id().orElseThrow())))
@@ -51,6 +85,11 @@ class ProjectsApiTest {
         .thenReturn(toProjectFreelancer(steveRogers()));
     when(this.freelancerService.findFreelancer(new FreelancerId(unregistered().id().orElseThrow())))
         .thenThrow(new DomainException("Freelancer is not allowed to join this project"));
+    when(this.freelancerService.findFreelancers(anyCollection()))
+        .thenAnswer(invocation -> invocation.<Collection<FreelancerId>>getArgument(0)
+            .stream()
+            .map(this.freelancerService::findFreelancer)
+            .toList());
   }
 
   @Test
@@ -76,6 +115,80 @@ class ProjectsApiTest {
         .contains(jsonPath("_embedded.projects[*].name").value(hasItem(avengers().name())));
   }
 
+  @Test
+  void projectsCanBeListedSortedByRequiredHours() {
+    given(project(avengers()).created())
+        .and(project(guardians()).created())
+        .when(projects().listedSortedBy("requiredHours"))
+        .then(response())
+        .contains(status().isOk())
+        .contains(embedded("projects[0].name").withValue(guardians().name()))
+        .contains(embedded("projects[1].name").withValue(avengers().name()));
+  }
+
+  @Test
+  void projectsCanBeListedSortedByNameDescending() {
+    given(project(avengers()).created())
+        .and(project(guardians()).created())
+        .when(projects().listedSortedBy("name,desc"))
+        .then(response())
+        .contains(status().isOk())
+        .contains(embedded("projects[0].name").withValue(guardians().name()))
+        .contains(embedded("projects[1].name").withValue(avengers().name()));
+  }
+
+  @Test
+  void projectsCanBeListedWithoutTotal() {
+    given(project(avengers()).created())
+        .and(project(guardians()).created())
+        .when(projects().listedWithoutTotal(0, 1))
+        .then(response())
+        .contains(status().isOk())
+        .contains(embedded("projects[0].name").withValue(avengers().name()))
+        .contains(jsonPath("_links.next.href").isNotEmpty())
+        .contains(jsonPath("_links.last.href").doesNotExist())
+        .contains(jsonPath("page.totalElements").doesNotExist());
+  }
+
+  @Test
+  void dontListProjectsSortedByUnsupportedProperty() {
+    given(project(avengers()).created())
+        .when(projects().listedSortedBy("description"))
+        .then(response())
+        .contains(status().isBadRequest())
+        .contains(jsonPath("type").value(endsWith("/probs/error.html")));
+  }
+
+  @Test
+  void projectsCanBeListedWithKeysetPagination() {
+    final var nextCursor = KeysetCursor.after(avengers().name(), id(avengers())).encode();
+    given(project(avengers()).created())
+        .and(project(guardians()).created())
+        .when(projects().listedFrom("", 1))
+        .then(response())
+        .contains(status().isOk())
+        .contains(embedded("projects").withLength(1))
+        .contains(embedded("projects[0].name").withValue(avengers().name()))
+        .contains(jsonPath("_links.create.href").isNotEmpty())
+        .contains(jsonPath("_links.prev.href").doesNotExist())
+        .contains(jsonPath("_links.next.href").value("http://localhost/projects?size=1&cursor=" + nextCursor));
+  }
+
+  @Test
+  void projectsCanBeListedAfterKeysetCursor() {
+    final var cursor = KeysetCursor.after(avengers().name(), id(avengers())).encode();
+    final var previousCursor = KeysetCursor.before(guardians().name(), id(guardians())).encode();
+    given(project(avengers()).created())
+        .and(project(guardians()).created())
+        .when(projects().listedFrom(cursor, 1))
+        .then(response())
+        .contains(status().isOk())
+        .contains(embedded("projects").withLength(1))
+        .contains(embedded("projects[0].name").withValue(guardians().name()))
+        .contains(jsonPath("_links.prev.href").value("http://localhost/projects?size=1&cursor=" + previousCursor))
+        .contains(jsonPath("_links.next.href").doesNotExist());
+  }
+
   @Test
   void projectsCanBeRetrievedAfterCreation() {
     given(systemReady())
@@ -85,6 +198,17 @@ class ProjectsApiTest {
         .contains(jsonPath("name").value(avengers().name()));
   }
 
+  @Test
+  void projectsCanBeRetrievedAfterJoiningThem() {
+    given(project(avengers()).created())
+        .and(project(avengers()).retrieved())
+        .when(freelancer(tonyStark()).joins(avengers()).withAllocation(40))
+        .then(project(avengers()).retrieved())
+        .contains(status().isOk())
+        .contains(embedded("freelancers").withLength(1))
+        .contains(embedded("freelancers[0].allocatedHours").withValue(40));
+  }
+
   @Test
   void dontCreateProjectsWithInvalidData() {
     given(systemReady())
@@ -124,6 +248,107 @@ class ProjectsApiTest {
         .contains(link("join").withPath("/projects/{id}/join", avengers().id()));
   }
 
+  @Test
+  void assignFreelancersInBulk() {
+    given(project(avengers()).created())
+        .and(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancers(tonyStark(), steveRogers()).join(avengers(), 40, 50))
+        .then(response())
+        .contains(status().isOk())
+        .contains(embedded("freelancers").withLength(2))
+        .contains(embedded("freelancers[0].firstName").withValue("Tony"))
+        .contains(embedded("freelancers[0].allocatedHours").withValue(40))
+        .contains(embedded("freelancers[1].firstName").withValue("Steve"))
+        .contains(embedded("freelancers[1].allocatedHours").withValue(50));
+  }
+
+  @Test
+  void scansNoTableToReadOrWriteProjects() {
+    given(project(avengers()).created())
+        .and(project(guardians()).created())
+        .and(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(project(avengers()).retrieved())
+        .and(freelancer(tonyStark()).joins(avengers()).withAllocation(40))
+        .and(freelancers(steveRogers()).join(guardians(), 50))
+        .and(projects().listedSortedBy("name,desc"))
+        .then(queryPlans())
+        .contains(jsonPath("[*].query").value(hasItem(startsWith("update"))))
+        .contains(jsonPath("[?(@.tableScans[0])]").isEmpty());
+  }
+
+  @Test
+  void insertsTeamMembersWithASingleBatch() {
+    given(project(avengers()).created())
+        .and(statementsCleared())
+        .when(freelancers(tonyStark(), steveRogers()).join(avengers(), 40, 50))
+        .then(statements())
+        .contains(jsonPath("[?(@.query =~ " + TEAM_MEMBERS_INSERT + ")].type").value(contains("BATCH")));
+  }
+
+  @Test
+  void writesOnlyNewTeamMembersWhenJoiningProjects() {
+    given(project(avengers()).created())
+        .and(freelancer(tonyStark()).joins(avengers()).withAllocation(40))
+        .and(statementsCleared())
+        .when(freelancer(steveRogers()).joins(avengers()).withAllocation(50))
+        .then(statements())
+        .contains(jsonPath("[?(@.query =~ " + TEAM_MEMBERS_INSERT + ")]", hasSize(1)))
+        .contains(jsonPath("[?(@.query =~ " + TEAM_MEMBERS_UPDATE_OR_DELETE + ")]").isEmpty());
+  }
+
+  @Test
+  void writesNothingWhenRemovingFreelancerThatIsNotInTheProject() {
+    given(project(avengers()).created())
+        .and(statementsCleared())
+        .when(freelancer(tonyStark()).failsToCommitTo(avengers()))
+        .then(statements())
+        .contains(jsonPath("[?(@.type != 'READ')]").isEmpty());
+  }
+
+  @Test
+  void publishBulkFreelancerAssignations() {
+    given(project(avengers()).created())
+        .and(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancers(tonyStark(), steveRogers()).join(avengers(), 40, 50))
+        .then(publishedEvents())
+        .contains(jsonPath("$.[0].freelancerId.value").value(tonyStark().id().orElseThrow()))
+        .contains(jsonPath("$.[1].freelancerId.value").value(steveRogers().id().orElseThrow()));
+  }
+
+  @Test
+  void dontAssignUnregisteredFreelancersInBulk() {
+    given(project(avengers()).created())
+        .and(freelancer(tonyStark()).registered())
+        .when(freelancers(tonyStark(), unregistered()).join(avengers(), 40, 50))
+        .then(response())
+        .contains(status().isUnprocessableEntity())
+        .contains(jsonPath("detail").isNotEmpty());
+  }
+
+  @Test
+  void dontAssignTheSameFreelancerTwiceInBulk() {
+    given(project(avengers()).created())
+        .and(freelancer(tonyStark()).registered())
+        .when(freelancers(tonyStark(), tonyStark()).join(avengers(), 40, 50))
+        .then(response())
+        .contains(status().isBadRequest())
+        .contains(jsonPath("detail").value(containsString(tonyStark().id().orElseThrow())));
+  }
+
+  @Test
+  void dontOverallocateProjectInBulk() {
+    given(project(avengers()).created())
+        .and(freelancer(tonyStark()).registered())
+        .and(freelancer(steveRogers()).registered())
+        .when(freelancers(tonyStark(), steveRogers()).join(avengers(), avengers().requiredHours(), 1))
+        .then(response())
+        .contains(status().isUnprocessableEntity())
+        .contains(jsonPath("detail").isNotEmpty());
+  }
+
   @Test
   void dontAssignUnregisteredFreelancers() {
     given(project(avengers()).created())
@@ -169,6 +394,37 @@ class ProjectsApiTest {
         .contains(jsonPath("_links.join").doesNotExist());
   }
 
+  @Test
+  void preventProjectOverallocationUnderConcurrentJoins() {
+    when(this.freelancerService.findFreelancer(any()))
+        .thenAnswer(invocation -> new Freelancer(invocation.getArgument(0), toProjectFreelancer(tonyStark()).name()));
+    given(project(avengers()).created())
+        .when(joinInParallel(avengers(), 300, 5))
+        .then(response())
+        .contains(status().isOk())
+        .contains(embedded("freelancers").withLength(avengers().requiredHours() / 5))
+        .contains(jsonPath("_links.join").doesNotExist());
+  }
+
+  @Test
+  void failToJoinProjectTwice() {
+    given(project(avengers()).created())
+        .and(freelancer(tonyStark()).joins(avengers()).withAllocation(40))
+        .when(freelancer(tonyStark()).joins(avengers()).withAllocation(10))
+        .then(response())
+        .contains(status().isUnprocessableEntity());
+  }
+
+  @Test
+  void rejectConcurrentJoinsOfTheSameFreelancerAsConflicts() {
+    given(project(avengers()).created())
+        .and(freelancer(tonyStark()).registered())
+        .when(freelancer(tonyStark()).joins(avengers()).inParallelWithAllocation(16, 5))
+        .then(response())
+        .contains(status().isOk())
+        .contains(embedded("freelancers").withLength(1));
+  }
+
   @Test
   void publishFreelancerAssignation() {
     given(project(avengers()).created())
@@ -180,6 +436,53 @@ class ProjectsApiTest {
         .contains(jsonPath("$.[0].allocatedHours").value(40));
   }
 
+  @Test
+  void returnConsistencyTokenWhenJoiningProjects() {
+    given(project(avengers()).created())
+        .when(freelancer(tonyStark()).joins(avengers()).withAllocation(40))
+        .then(response())
+        .contains(status().isOk())
+        .contains(header().exists(EventChains.TOKEN_HEADER));
+  }
+
+  @Test
+  void consistencyTokenCompletesOnceJoinHasBeenHandled() {
+    given(project(avengers()).created())
+        .when(freelancer(tonyStark()).joins(avengers()).withAllocationAwaitingConsistency(40))
+        .then(response())
+        .contains(status().isOk())
+        .contains(header().string("Preference-Applied", "wait=10"))
+        .contains(jsonPath("state").value("COMPLETED"));
+  }
+
+  @Test
+  void consistencyTokenFailsWhenJoinCannotBeHandled() {
+    doThrow(new OptimisticLockingFailureException("Tony Stark was updated concurrently"))
+        .when(this.freelancerRepository)
+        .updateAll(anyList());
+    given(project(avengers()).created())
+        .when(freelancer(tonyStark()).joins(avengers()).withAllocationAwaitingConsistency(40))
+        .then(response())
+        .contains(status().isOk())
+        .contains(jsonPath("state").value("FAILED"));
+  }
+
+  @Test
+  void unknownConsistencyTokensAreNotFound() {
+    given(systemReady())
+        .when(consistencyTokenRetrieved(UUID.randomUUID()))
+        .then(response())
+        .contains(status().isNotFound());
+  }
+
+  @Test
+  void expiredConsistencyTokensAreNotFound() {
+    given(project(avengers()).created())
+        .when(consistencyTokenRetrievedOnceExpired(freelancer(tonyStark()).joins(avengers()).withAllocation(40)))
+        .then(response())
+        .contains(status().isNotFound());
+  }
+
   @Test
   void projectRevertedWhenFreelancerNotAvailable() {
     given(project(avengers()).created())
@@ -189,6 +492,18 @@ class ProjectsApiTest {
         .contains(embedded("projects[0]._embedded.freelancers").withLength(0));
   }
 
+  private RestApiAction consistencyTokenRetrieved(final UUID token) {
+    return restApi -> restApi.get("/consistency-tokens/{token}", token);
+  }
+
+  private RestApiAction consistencyTokenRetrievedOnceExpired(final RestApiAction join) {
+    return restApi -> {
+      final var token = join.perform(restApi).getResponse().getHeader(EventChains.TOKEN_HEADER);
+      this.eventChains.discardChainsStartedBefore(Instant.now());
+      return restApi.get("/consistency-tokens/{token}", token);
+    };
+  }
+
   private ProjectDto avengers() {
     return new ProjectDtoBuilder()
         .id("eda7cd79-1976-46fc-81ef-fe5f6dba7aa5")
@@ -198,6 +513,19 @@ class ProjectsApiTest {
         .build();
   }
 
+  private ProjectDto guardians() {
+    return new ProjectDtoBuilder()
+        .id("0b1c8a53-77f1-4c4c-9d52-0f6a3e5b2a10")
+        .name("Guardians of the Galaxy")
+        .description("A bunch of a-holes")
+        .requiredHours(100)
+        .build();
+  }
+
+  private UUID id(final ProjectDto project) {
+    return UUID.fromString(project.id().orElseThrow());
+  }
+
   private Freelancer toProjectFreelancer(final FreelancerDto dto) {
     return new Freelancer(
         new FreelancerId(dto.id().orElseThrow()),
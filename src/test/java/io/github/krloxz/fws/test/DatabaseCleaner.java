@@ -1,10 +1,15 @@
 package io.github.krloxz.fws.test;
 
 import org.flywaydb.core.Flyway;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import io.github.krloxz.fws.support.AggregateCaches;
+import io.github.krloxz.fws.support.ChangeFeed;
+
 /**
  * JUnit extension to clean up the database before each test.
  *
@@ -19,9 +24,15 @@ public class DatabaseCleaner implements BeforeEachCallback {
     if (DatabaseCleaner.isFirstTest) {
       DatabaseCleaner.isFirstTest = false;
     } else {
-      final var flyway = SpringExtension.getApplicationContext(context).getBean(Flyway.class);
+      final var applicationContext = SpringExtension.getApplicationContext(context);
+      final var flyway = applicationContext.getBean(Flyway.class);
       flyway.clean();
       flyway.migrate();
+      // The event publication registry lives in the default schema, which Flyway doesn't clean
+      applicationContext.getBean(DSLContext.class).deleteFrom(DSL.table(DSL.name("event_publication"))).execute();
+      applicationContext.getBean(AggregateCaches.class).evictAll();
+      applicationContext.getBean(QueryPlans.class).clear();
+      applicationContext.getBean(ChangeFeed.class).clear();
     }
   }
 
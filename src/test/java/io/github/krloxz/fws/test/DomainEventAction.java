@@ -1,6 +1,7 @@
 package io.github.krloxz.fws.test;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
 import org.awaitility.Awaitility;
@@ -10,6 +11,7 @@ import org.springframework.modulith.events.CompletedEventPublications;
 import org.springframework.modulith.events.EventPublication;
 
 import io.github.krloxz.fws.support.DomainEventPublisher;
+import io.github.krloxz.fws.support.EventPublicationHousekeeping;
 import io.github.krloxz.fws.test.gherkin.actions.Action;
 
 /**
@@ -26,6 +28,101 @@ public interface DomainEventAction extends Action<ApplicationContext, Void> {
    */
   DomainEvent event();
 
+  /**
+   * Combines several actions into one that publishes all their events at once, in the order given,
+   * and waits until all the publications are completed.
+   *
+   * @param actions
+   *        the actions to combine
+   * @return the combined action
+   */
+  static Together together(final DomainEventAction... actions) {
+    return new Together(List.of(actions), List.of(actions));
+  }
+
+  /**
+   * Resubmits the incomplete event publications, as done on startup for the publications left by a
+   * previous run, and waits until the publication of the given action's event is completed.
+   *
+   * @param action
+   *        the action whose event publication was left incomplete
+   * @return the resubmitting action
+   */
+  static Action<ApplicationContext, Void> resubmitted(final DomainEventAction action) {
+    return new Resubmitted(action);
+  }
+
+  /**
+   * An action that publishes several events at once and waits until the publications of some of
+   * them are completed.
+   *
+   * @param published
+   *        the actions whose events are published
+   * @param awaited
+   *        the actions whose event publications are waited for
+   */
+  record Together(List<DomainEventAction> published, List<DomainEventAction> awaited)
+      implements Action<ApplicationContext, Void> {
+
+    /**
+     * @param actions
+     *        the actions whose event publications are expected to complete, e.g. when the others are
+     *        expected to fail
+     * @return a copy of this action that only waits for the given actions
+     */
+    public Together awaitingOnly(final DomainEventAction... actions) {
+      return new Together(this.published, List.of(actions));
+    }
+
+    @Override
+    public Void perform(final ApplicationContext context) {
+      final var events = this.published.stream().map(DomainEventAction::event).toList();
+      final var awaitedEvents = this.awaited.stream().map(DomainEventAction::event).toList();
+      context.getBean(DomainEventPublisher.class).publish(() -> events);
+      Awaitility.await("eventPublicationsAreCompleted")
+          .timeout(Duration.ofSeconds(1))
+          .until(() -> completedEvents(context).containsAll(awaitedEvents));
+      return null;
+    }
+
+    @Override
+    public Class<ApplicationContext> inputType() {
+      return ApplicationContext.class;
+    }
+
+  }
+
+  /**
+   * An action that resubmits the incomplete event publications and waits until the publication of
+   * an event is completed.
+   *
+   * @param action
+   *        the action whose event publication is waited for
+   */
+  record Resubmitted(DomainEventAction action) implements Action<ApplicationContext, Void> {
+
+    @Override
+    public Void perform(final ApplicationContext context) {
+      try {
+        context.getBean(EventPublicationHousekeeping.class)
+            .resubmitIncompletePublicationsPublishedBefore(Instant.now());
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while resubmitting event publications", e);
+      }
+      Awaitility.await("eventPublicationIsCompleted")
+          .timeout(Duration.ofSeconds(1))
+          .until(() -> completedEvents(context).contains(this.action.event()));
+      return null;
+    }
+
+    @Override
+    public Class<ApplicationContext> inputType() {
+      return ApplicationContext.class;
+    }
+
+  }
+
   @Override
   default Void perform(final ApplicationContext context) {
     publishEvent(context);
@@ -46,11 +143,15 @@ public interface DomainEventAction extends Action<ApplicationContext, Void> {
   }
 
   private boolean eventPublicationIsCompleted(final ApplicationContext context) {
+    return completedEvents(context).contains(event());
+  }
+
+  private static List<Object> completedEvents(final ApplicationContext context) {
     return context.getBean(CompletedEventPublications.class)
         .findAll()
         .stream()
         .map(EventPublication::getEvent)
-        .anyMatch(event()::equals);
+        .toList();
   }
 
 }
@@ -2,6 +2,7 @@ package io.github.krloxz.fws.test;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
 
+import org.jooq.impl.DefaultExecuteListenerProvider;
 import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcBuilderCustomizer;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
@@ -28,6 +29,16 @@ class FwsApplicationTestConfig {
     };
   }
 
+  @Bean
+  QueryPlans queryPlans() {
+    return new QueryPlans();
+  }
+
+  @Bean
+  DefaultExecuteListenerProvider queryPlansListenerProvider(final QueryPlans queryPlans) {
+    return new DefaultExecuteListenerProvider(queryPlans);
+  }
+
   private static ResultMatcher validOpenApiSpec() {
     final var whitelist = ValidationErrorsWhitelist.create()
         .withRule(
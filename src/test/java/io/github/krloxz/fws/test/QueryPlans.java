@@ -0,0 +1,232 @@
+package io.github.krloxz.fws.test;
+
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jooq.DSLContext;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.jooq.ExecuteType;
+import org.jooq.Query;
+import org.springframework.context.ApplicationContext;
+
+import io.github.krloxz.fws.test.gherkin.actions.Action;
+
+/**
+ * jOOQ listener that records the latest read and write statements, enabling the {@link #queryPlans()
+ * Query Plans Action} to verify which indexes they use, and the {@link #statements() Statements
+ * Action} to verify how many statements reach the database, counting each JDBC batch as one.
+ * <p>
+ * Each distinct statement of a JDBC batch is recorded for its plan once, with the bind values of the
+ * first time it appears in the batch.
+ *
+ * @author Carlos Gomez
+ */
+public class QueryPlans implements ExecuteListener {
+
+  private static final int MAX_RECORDED_QUERIES = 200;
+  private static final Pattern TABLE_SCAN = Pattern.compile("/\\* ([\\w.]+)\\.tableScan \\*/");
+  private static final Pattern PLAN_COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+  private static final Pattern WHERE = Pattern.compile("\\bwhere\\b", Pattern.CASE_INSENSITIVE);
+
+  private final Deque<String> queries = new ConcurrentLinkedDeque<>();
+  private final Deque<Statement> statements = new ConcurrentLinkedDeque<>();
+
+  @Override
+  public void executeEnd(final ExecuteContext context) {
+    if ((context.type() == ExecuteType.READ || context.type() == ExecuteType.WRITE) && context.query() != null) {
+      final var query = context.configuration().dsl().renderInlined(context.query());
+      record(this.queries, query);
+      record(this.statements, new Statement(context.type(), query));
+    } else if (context.type() == ExecuteType.BATCH) {
+      record(this.statements, new Statement(context.type(), String.join(";\n", context.batchSQL())));
+      recordDistinct(context.configuration().dsl(), context.batchQueries());
+    }
+  }
+
+  private void recordDistinct(final DSLContext create, final Query[] batchQueries) {
+    Arrays.stream(batchQueries)
+        .filter(Objects::nonNull)
+        .collect(toMap(create::render, create::renderInlined, (first, next) -> first, LinkedHashMap::new))
+        .values()
+        .forEach(query -> record(this.queries, query));
+  }
+
+  private static <T> void record(final Deque<T> recorded, final T item) {
+    recorded.addLast(item);
+    while (recorded.size() > MAX_RECORDED_QUERIES) {
+      recorded.pollFirst();
+    }
+  }
+
+  /**
+   * Forgets the statements recorded so far, so that statements executed by a previous test don't
+   * leak into the plans retrieved by the next one.
+   */
+  public void clear() {
+    this.queries.clear();
+    this.statements.clear();
+  }
+
+  /**
+   * @return an {@link Action} that forgets the statements recorded so far, so that a scenario only
+   *         verifies the statements executed by the actions that follow
+   */
+  public static Action<ApplicationContext, Void> statementsCleared() {
+    return new Action<>() {
+
+      @Override
+      public Void perform(final ApplicationContext context) {
+        context.getBean(QueryPlans.class).clear();
+        return null;
+      }
+
+      @Override
+      public Class<ApplicationContext> inputType() {
+        return ApplicationContext.class;
+      }
+
+    };
+  }
+
+  /**
+   * @return an {@link Action} that retrieves the statements recorded since the last time this
+   *         action was performed, in the order they were executed
+   */
+  public static Action<ApplicationContext, List<Statement>> statements() {
+    return new Action<>() {
+
+      @Override
+      public List<Statement> perform(final ApplicationContext context) {
+        final var recorder = context.getBean(QueryPlans.class);
+        final var statements = List.copyOf(recorder.statements);
+        recorder.statements.clear();
+        return statements;
+      }
+
+      @Override
+      public Class<ApplicationContext> inputType() {
+        return ApplicationContext.class;
+      }
+
+    };
+  }
+
+  /**
+   * @return an {@link Action} that retrieves the execution plans of the statements recorded since
+   *         the last time this action was performed
+   */
+  public static Action<ApplicationContext, List<QueryPlan>> queryPlans() {
+    return new Action<>() {
+
+      @Override
+      public List<QueryPlan> perform(final ApplicationContext context) {
+        final var recorder = context.getBean(QueryPlans.class);
+        final var queries = new ArrayList<>(recorder.queries);
+        final var plans = queries.stream()
+            .map(query -> QueryPlan.of(query, explain(context.getBean(DSLContext.class), query)))
+            .toList();
+        recorder.queries.clear();
+        return plans;
+      }
+
+      @Override
+      public Class<ApplicationContext> inputType() {
+        return ApplicationContext.class;
+      }
+
+    };
+  }
+
+  private static String explain(final DSLContext create, final String query) {
+    return create.fetchValue("EXPLAIN " + query).toString();
+  }
+
+  /**
+   * A statement that reached the database.
+   *
+   * @param type
+   *        whether the statement read, wrote, or was a JDBC batch
+   * @param query
+   *        the statement with its bind values inlined, or the statements of a batch with their bind
+   *        placeholders
+   */
+  public static record Statement(ExecuteType type, String query) {
+  }
+
+  /**
+   * Execution plan of a statement.
+   *
+   * @param query
+   *        the statement with its bind values inlined
+   * @param plan
+   *        the plan the database chose to execute the statement
+   * @param tableScans
+   *        the tables the plan scans in full, except for the driving table of a plan without
+   *        conditions on it, which has to be scanned anyway
+   */
+  public static record QueryPlan(String query, String plan, List<String> tableScans) {
+
+    static QueryPlan of(final String query, final String plan) {
+      final var tableScans = TABLE_SCAN.matcher(plan)
+          .results()
+          .map(result -> result.group(1))
+          .collect(toCollection(ArrayList::new));
+      unfilteredDrivingScan(plan).ifPresent(tableScans::remove);
+      return new QueryPlan(query, plan, List.copyOf(tableScans));
+    }
+
+    /**
+     * Finds the driving table of the given plan when it's scanned in full without conditions. Only
+     * the outermost statement is considered, since the conditions of a subquery don't filter the
+     * driving table.
+     */
+    private static Optional<String> unfilteredDrivingScan(final String plan) {
+      final var outermost = outermost(plan);
+      if (WHERE.matcher(PLAN_COMMENT.matcher(outermost).replaceAll("")).find()) {
+        return Optional.empty();
+      }
+      return PLAN_COMMENT.matcher(outermost)
+          .results()
+          .findFirst()
+          .map(drivingAccess -> TABLE_SCAN.matcher(drivingAccess.group()))
+          .filter(Matcher::matches)
+          .map(drivingScan -> drivingScan.group(1));
+    }
+
+    /**
+     * Removes the parenthesized parts of the given plan, e.g. subqueries, along with its string
+     * literals.
+     */
+    private static String outermost(final String plan) {
+      final var outermost = new StringBuilder();
+      var depth = 0;
+      var quoted = false;
+      for (final var c : plan.toCharArray()) {
+        if (c == '\'') {
+          quoted = !quoted;
+        } else if (!quoted && c == '(') {
+          depth++;
+        } else if (!quoted && c == ')') {
+          depth--;
+        } else if (!quoted && depth == 0) {
+          outermost.append(c);
+        }
+      }
+      return outermost.toString();
+    }
+
+  }
+
+}
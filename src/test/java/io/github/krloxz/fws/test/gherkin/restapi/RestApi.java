@@ -1,5 +1,8 @@
 package io.github.krloxz.fws.test.gherkin.restapi;
 
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
@@ -7,6 +10,7 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 /**
  * Entry point to interact with the REST API of the system using the {@link MockMvc} framework.
@@ -20,6 +24,7 @@ public class RestApi {
 
   private final MockMvc mvc;
   private final ObjectMapper objectMapper;
+  private final HttpHeaders headers;
 
   /**
    * Constructs a {@code RestApi} instance with the given {@link MockMvc} and {@link ObjectMapper}.
@@ -30,8 +35,29 @@ public class RestApi {
    *        the {@link ObjectMapper} used to serialize request bodies to JSON
    */
   public RestApi(final MockMvc mvc, final ObjectMapper objectMapper) {
+    this(mvc, objectMapper, new HttpHeaders());
+  }
+
+  private RestApi(final MockMvc mvc, final ObjectMapper objectMapper, final HttpHeaders headers) {
     this.mvc = mvc;
     this.objectMapper = objectMapper;
+    this.headers = headers;
+  }
+
+  /**
+   * Returns a copy of this instance that includes the given header in all the requests it performs.
+   *
+   * @param name
+   *        the header name
+   * @param values
+   *        one or more header values
+   * @return a new {@code RestApi} instance
+   */
+  public RestApi withHeader(final String name, final String... values) {
+    final var newHeaders = new HttpHeaders();
+    newHeaders.addAll(this.headers);
+    newHeaders.addAll(name, List.of(values));
+    return new RestApi(this.mvc, this.objectMapper, newHeaders);
   }
 
   /**
@@ -60,6 +86,34 @@ public class RestApi {
     return perform(HttpMethod.POST, uri, body);
   }
 
+  /**
+   * Performs a POST request with a newline delimited JSON body.
+   *
+   * @param uri
+   *        the target URI
+   * @param lines
+   *        the lines of the body, strings are sent as they are and any other object is serialized to
+   *        JSON
+   * @return an {@link MvcResult} containing the result of the executed request
+   */
+  public MvcResult postLines(final String uri, final Object... lines) {
+    try {
+      final var writer = this.objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+      final var content = new StringBuilder();
+      for (final Object line : lines) {
+        content.append(line instanceof final String text ? text : writer.writeValueAsString(line)).append('\n');
+      }
+      return this.mvc.perform(
+          MockMvcRequestBuilders.post(uri)
+              .headers(this.headers)
+              .contentType(MediaType.APPLICATION_NDJSON)
+              .content(content.toString()))
+          .andReturn();
+    } catch (final Exception e) {
+      throw new IllegalStateException("An unexpected exception occurred while performing 'POST %s'".formatted(uri), e);
+    }
+  }
+
   /**
    * Performs a PUT request.
    *
@@ -101,7 +155,8 @@ public class RestApi {
 
   private MvcResult perform(final HttpMethod method, final String uriTemplate, final Object... uriVars) {
     try {
-      return this.mvc.perform(MockMvcRequestBuilders.request(method, uriTemplate, uriVars)).andReturn();
+      return this.mvc.perform(MockMvcRequestBuilders.request(method, uriTemplate, uriVars).headers(this.headers))
+          .andReturn();
     } catch (final Exception e) {
       throw new IllegalStateException(
           "An unexpected exception occurred while performing '%s %s'".formatted(method, uriTemplate), e);
@@ -112,6 +167,7 @@ public class RestApi {
     try {
       return this.mvc.perform(
           MockMvcRequestBuilders.request(method, uri)
+              .headers(this.headers)
               .contentType(MediaType.APPLICATION_JSON)
               .content(this.objectMapper.writeValueAsString(body)))
           .andReturn();